@@ -2,6 +2,7 @@ package com.hybridaccess.auth_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Point d'entrée principal de l'application Backend Hybrid Access System.
@@ -13,6 +14,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - La journalisation des événements d'accès
  */
 @SpringBootApplication
+@EnableScheduling
 public class AuthBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,449 @@
+package com.hybridaccess.auth_backend.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Normalisation des images FACE avant l'envoi à face-service.
+ *
+ * face-service ne garde que la luminance de l'image, réduite à IMAGE_SIZE x IMAGE_SIZE (64) :
+ * les images des caméras et navigateurs (résolution et qualité quelconques) sont donc
+ * - décodées avec sous-échantillonnage (un pixel sur n) jusqu'à environ 2 x max-dimension,
+ *   sans allouer le raster pleine résolution
+ * - converties en niveaux de gris (mêmes coefficients qu'OpenCV) ligne par ligne et
+ *   réduites par moyenne de surface (équivalent INTER_AREA) à max-dimension pixels au plus
+ * - ré-encodées en JPEG (qualité configurable), sans métadonnées (EXIF, ICC, commentaires)
+ *
+ * Exécutée sur un pool borné ; l'image d'origine est envoyée telle quelle si la file est pleine,
+ * si elle n'est pas décodable, si elle porte une orientation EXIF (appliquée par face-service)
+ * ou si le résultat n'est pas plus petit. Compteurs : attente en file, décodage, réduction, encodage.
+ */
+@Component
+@Slf4j
+public class FaceImageNormalizer {
+
+    /**
+     * Au-delà (ex. PNG très compressé de 7000 x 7000 sous la limite de 2 Mo), l'image n'est pas décodée
+     */
+    private static final long MAX_SOURCE_PIXELS = 16_000_000L;
+
+    @Value("${face-service.normalizer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${face-service.normalizer.max-dimension:256}")
+    private int maxDimension;
+
+    @Value("${face-service.normalizer.quality:0.85}")
+    private float quality;
+
+    @Value("${face-service.normalizer.pool-size:0}")
+    private int poolSize;
+
+    @Value("${face-service.normalizer.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder normalized = new LongAdder();
+    private final LongAdder passedThrough = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAccumulator maxDecodeNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder resizeNanos = new LongAdder();
+    private final LongAccumulator maxResizeNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAccumulator maxEncodeNanos = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "face-normalizer-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Face image normalizer {}: {} thread(s), queue capacity {}, max dimension {}, quality {}",
+                enabled ? "enabled" : "disabled", threads, queueCapacity, maxDimension, quality);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Normalise une image sur le pool dédié.
+     * Annuler le future avant le début du traitement évite le traitement.
+     *
+     * @param image Image reçue (JPEG, PNG...)
+     * @return Future de l'image normalisée, ou de l'image d'origine si elle n'a pas été normalisée
+     *         (jamais en échec)
+     */
+    public CompletableFuture<byte[]> normalize(byte[] image) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(image);
+        }
+
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                record(queueWaitNanos, maxQueueWaitNanos, System.nanoTime() - submittedAt);
+                result.complete(normalizeNow(image));
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("⚠️ Face image normalizer queue full ({} pending), sending original image", queueCapacity);
+            return CompletableFuture.completedFuture(image);
+        }
+        return result;
+    }
+
+    /**
+     * Statistiques (volumes avant / après et temps par étape, en millisecondes).
+     */
+    public Map<String, Object> getStats() {
+        long count = normalized.sum();
+        long in = bytesIn.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxDimension", maxDimension);
+        stats.put("quality", quality);
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("normalized", count);
+        stats.put("passedThrough", passedThrough.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("bytesIn", in);
+        stats.put("bytesOut", bytesOut.sum());
+        stats.put("sizeRatio", in > 0 ? (double) bytesOut.sum() / in : 0.0);
+        long processed = count + passedThrough.sum();
+        stats.put("avgQueueWaitMs", processed > 0 ? toMillis(queueWaitNanos.sum() / processed) : 0.0);
+        stats.put("maxQueueWaitMs", toMillis(maxQueueWaitNanos.get()));
+        stats.put("avgDecodeMs", count > 0 ? toMillis(decodeNanos.sum() / count) : 0.0);
+        stats.put("maxDecodeMs", toMillis(maxDecodeNanos.get()));
+        stats.put("avgResizeMs", count > 0 ? toMillis(resizeNanos.sum() / count) : 0.0);
+        stats.put("maxResizeMs", toMillis(maxResizeNanos.get()));
+        stats.put("avgEncodeMs", count > 0 ? toMillis(encodeNanos.sum() / count) : 0.0);
+        stats.put("maxEncodeMs", toMillis(maxEncodeNanos.get()));
+        return stats;
+    }
+
+    /**
+     * Décode, réduit et ré-encode ; l'image d'origine est retournée si une étape échoue
+     * ou si le résultat n'est pas plus petit.
+     */
+    private byte[] normalizeNow(byte[] image) {
+        if (exifOrientation(image) > 1) {
+            passedThrough.increment();
+            return image;
+        }
+        try {
+            long start = System.nanoTime();
+            BufferedImage decoded = decode(image, maxDimension);
+            if (decoded == null) {
+                passedThrough.increment();
+                return image;
+            }
+            long decodedAt = System.nanoTime();
+
+            int width = decoded.getWidth();
+            int height = decoded.getHeight();
+            double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+            int targetWidth = Math.max(1, (int) Math.round(width * scale));
+            int targetHeight = Math.max(1, (int) Math.round(height * scale));
+            BufferedImage gray = toGray(resample(decoded, targetWidth, targetHeight), targetWidth, targetHeight);
+            long resizedAt = System.nanoTime();
+
+            byte[] encoded = encode(gray);
+            long encodedAt = System.nanoTime();
+
+            if (encoded.length >= image.length) {
+                passedThrough.increment();
+                return image;
+            }
+            record(decodeNanos, maxDecodeNanos, decodedAt - start);
+            record(resizeNanos, maxResizeNanos, resizedAt - decodedAt);
+            record(encodeNanos, maxEncodeNanos, encodedAt - resizedAt);
+            normalized.increment();
+            bytesIn.add(image.length);
+            bytesOut.add(encoded.length);
+            log.debug("Face image normalized: {}x{} {} bytes -> {}x{} {} bytes",
+                    width, height, image.length, targetWidth, targetHeight, encoded.length);
+            return encoded;
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Face image not normalized ({}), sending original image", e.getMessage());
+            passedThrough.increment();
+            return image;
+        }
+    }
+
+    /**
+     * Décode en mémoire (pas de cache disque ImageIO) ; null si le format n'est pas reconnu
+     * ou si l'image dépasse MAX_SOURCE_PIXELS.
+     *
+     * Le décodeur ne garde qu'un pixel sur n dans chaque direction, n choisi pour conserver au moins
+     * 2 x maxDimension pixels sur le grand côté : la moyenne de surface qui suit lisse le résultat.
+     */
+    private static BufferedImage decode(byte[] image, int maxDimension) throws IOException {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int period = Math.max(1, Math.max(width, height) / (2 * Math.max(1, maxDimension)));
+                if (period > 1) {
+                    param.setSourceSubsampling(period, period, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Luminance d'une ligne, Y = 0.299 R + 0.587 G + 0.114 B (virgule fixe d'OpenCV, COLOR_BGR2GRAY).
+     *
+     * @param rgb Tampon de travail (largeur de l'image), utilisé pour les types autres que BGR / gris
+     */
+    private static void luminanceRow(BufferedImage image, int y, float[] luma, int[] rgb) {
+        int width = image.getWidth();
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            for (int x = 0, p = y * width * 3; x < width; x++, p += 3) {
+                luma[x] = luma(bgr[p + 2] & 0xFF, bgr[p + 1] & 0xFF, bgr[p] & 0xFF);
+            }
+        } else if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            byte[] gray = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            for (int x = 0, p = y * width; x < width; x++, p++) {
+                luma[x] = gray[p] & 0xFF;
+            }
+        } else {
+            image.getRGB(0, y, width, 1, rgb, 0, width);
+            for (int x = 0; x < width; x++) {
+                int pixel = rgb[x];
+                luma[x] = luma((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+            }
+        }
+    }
+
+    private static int luma(int r, int g, int b) {
+        return (r * 4899 + g * 9617 + b * 1868 + 8192) >> 14;
+    }
+
+    /**
+     * Réduction par moyenne de surface, séparable (lignes puis colonnes) :
+     * chaque pixel de sortie est la moyenne pondérée des pixels source qu'il recouvre.
+     * La luminance est calculée ligne par ligne pendant la passe horizontale.
+     */
+    private static float[] resample(BufferedImage image, int targetWidth, int targetHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Span[] columns = spans(width, targetWidth);
+        float[] line = new float[width];
+        int[] rgb = new int[width];
+        float[] rows = new float[targetWidth * height];
+        for (int y = 0; y < height; y++) {
+            luminanceRow(image, y, line, rgb);
+            for (int x = 0; x < targetWidth; x++) {
+                rows[y * targetWidth + x] = columns[x].average(line, 0, 1);
+            }
+        }
+
+        if (height == targetHeight) {
+            return rows;
+        }
+        Span[] lines = spans(height, targetHeight);
+        float[] result = new float[targetWidth * targetHeight];
+        for (int y = 0; y < targetHeight; y++) {
+            for (int x = 0; x < targetWidth; x++) {
+                result[y * targetWidth + x] = lines[y].average(rows, x, targetWidth);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pixels source couverts par chaque pixel de sortie (n -> m, m <= n) et part de chacun.
+     */
+    private static Span[] spans(int n, int m) {
+        double scale = (double) n / m;
+        Span[] spans = new Span[m];
+        for (int o = 0; o < m; o++) {
+            double start = o * scale;
+            double end = Math.min(n, start + scale);
+            int first = (int) start;
+            int last = Math.min(n - 1, (int) Math.ceil(end) - 1);
+            float[] weights = new float[last - first + 1];
+            for (int i = first; i <= last; i++) {
+                double covered = Math.min(end, i + 1) - Math.max(start, i);
+                weights[i - first] = (float) (Math.max(0, covered) / scale);
+            }
+            spans[o] = new Span(first, weights);
+        }
+        return spans;
+    }
+
+    private static BufferedImage toGray(float[] luma, int width, int height) {
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) Math.min(255, Math.max(0, Math.round(luma[i])));
+        }
+        return gray;
+    }
+
+    /**
+     * JPEG à la qualité configurée ; seul l'en-tête JFIF minimal est écrit (aucune métadonnée source).
+     */
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Orientation EXIF (tag 0x0112 de l'IFD0) d'un JPEG ; 1 (normale) si absente ou illisible.
+     */
+    private static int exifOrientation(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break;
+            }
+            int length = u16(jpeg, pos + 2, false);
+            int end = Math.min(jpeg.length, pos + 2 + length);
+            if (marker == 0xE1 && pos + 10 <= end
+                    && jpeg[pos + 4] == 'E' && jpeg[pos + 5] == 'x' && jpeg[pos + 6] == 'i' && jpeg[pos + 7] == 'f'
+                    && jpeg[pos + 8] == 0 && jpeg[pos + 9] == 0) {
+                return tiffOrientation(jpeg, pos + 10, end);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean littleEndian = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        long ifdOffset = u32(data, tiff + 4, littleEndian);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) {
+            return 1;
+        }
+        int ifd = tiff + (int) ifdOffset;
+        int entries = u16(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (u16(data, entry, littleEndian) == 0x0112) {
+                return u16(data, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] data, int offset, boolean littleEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return littleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static long u32(byte[] data, int offset, boolean littleEndian) {
+        long high = u16(data, littleEndian ? offset + 2 : offset, littleEndian);
+        long low = u16(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Premier pixel source couvert et poids de chaque pixel couvert (somme = 1)
+     */
+    private record Span(int first, float[] weights) {
+
+        float average(float[] data, int offset, int stride) {
+            float sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += data[offset + (first + i) * stride] * weights[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.hybridaccess.auth_backend.client;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disjoncteur (circuit breaker) des appels vers face-service.
+ *
+ * - CLOSED : les N derniers appels (fenêtre glissante) sont suivis ; au-delà de minimum-calls,
+ *   un taux d'échecs ou d'appels lents supérieur au seuil ouvre le circuit
+ * - OPEN : appels refusés immédiatement pendant open-duration-ms (aucune attente sur un service mort)
+ * - HALF_OPEN : quelques appels de test ; tous réussis et rapides → CLOSED, un seul en échec → OPEN
+ *
+ * Un échec = erreur réseau, timeout ou réponse 5xx ; un refus métier (4xx, visage non reconnu) n'en est pas un.
+ *
+ * Chaque autorisation porte la génération de l'état qui l'a accordée (incrémentée à chaque transition) :
+ * le résultat d'un appel admis dans un état précédent est ignoré (il ne compte ni comme appel de test,
+ * ni dans la fenêtre, et son annulation ne libère pas de place de test).
+ */
+@Component
+@Slf4j
+public class FaceServiceCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Valeur renvoyée par {@link #tryAcquirePermission()} quand l'appel est refusé.
+     */
+    public static final long REJECTED = -1;
+
+    @Value("${face-service.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${face-service.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${face-service.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${face-service.circuit-breaker.slow-call-threshold-ms:3000}")
+    private long slowCallThresholdMs;
+
+    @Value("${face-service.circuit-breaker.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${face-service.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${face-service.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+
+    // Fenêtre glissante (CLOSED) : résultat des derniers appels
+    private boolean[] failed;
+    private boolean[] slow;
+    private int next;
+    private int buffered;
+    private int failedCount;
+    private int slowCount;
+
+    // Appels de test (HALF_OPEN)
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder staleOutcomes = new LongAdder();
+    private final LongAdder toOpen = new LongAdder();
+    private final LongAdder toHalfOpen = new LongAdder();
+    private final LongAdder toClosed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        failed = new boolean[windowSize];
+        slow = new boolean[windowSize];
+    }
+
+    /**
+     * Demande l'autorisation d'appeler face-service.
+     * Chaque autorisation accordée doit être suivie de {@link #onResult} ou {@link #onIgnored}
+     * avec la valeur renvoyée.
+     *
+     * @return La génération de l'autorisation, ou {@link #REJECTED} si le circuit est ouvert
+     *         (ou si les appels de test sont déjà en cours)
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                rejectedCalls.increment();
+                return REJECTED;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                rejectedCalls.increment();
+                return REJECTED;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    /**
+     * Enregistre le résultat d'un appel autorisé.
+     *
+     * @param permission Valeur renvoyée par {@link #tryAcquirePermission()}
+     * @param failure true si face-service est en cause (réseau, timeout, 5xx)
+     * @param durationMs Durée de l'appel
+     */
+    public synchronized void onResult(long permission, boolean failure, long durationMs) {
+        if (permission != generation) {
+            // Appel admis dans un état précédent (avant une ouverture, ou sonde d'un autre demi-ouvert)
+            staleOutcomes.increment();
+            return;
+        }
+        boolean isSlow = durationMs >= slowCallThresholdMs;
+
+        if (state == State.HALF_OPEN) {
+            if (failure || isSlow) {
+                log.warn("⚠️ Face service probe failed (failure={}, {} ms), reopening circuit", failure, durationMs);
+                transitionTo(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (buffered == windowSize) {
+            failedCount -= failed[next] ? 1 : 0;
+            slowCount -= slow[next] ? 1 : 0;
+        } else {
+            buffered++;
+        }
+        failed[next] = failure;
+        slow[next] = isSlow;
+        failedCount += failure ? 1 : 0;
+        slowCount += isSlow ? 1 : 0;
+        next = (next + 1) % windowSize;
+
+        if (buffered >= minimumCalls
+                && (failedCount * 100 >= failureRateThreshold * buffered
+                    || slowCount * 100 >= slowCallRateThreshold * buffered)) {
+            log.warn("⚠️ Face service failure rate {}%, slow call rate {}% over {} calls, opening circuit",
+                    failedCount * 100 / buffered, slowCount * 100 / buffered, buffered);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Libère une autorisation sans résultat (appel annulé ou refusé par le bulkhead).
+     *
+     * @param permission Valeur renvoyée par {@link #tryAcquirePermission()}
+     */
+    public synchronized void onIgnored(long permission) {
+        if (permission == generation && state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * @return true tant que le circuit est ouvert et que les appels sont refusés
+     *         (passe à false dès que des appels de test sont possibles)
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openDurationMs;
+    }
+
+    /**
+     * @return Secondes avant les premiers appels de test (0 si le circuit n'est pas ouvert)
+     */
+    public synchronized long getRetryAfterSeconds() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        long remainingMs = openDurationMs - (System.currentTimeMillis() - openedAt);
+        return Math.max(1, (remainingMs + 999) / 1000);
+    }
+
+    /**
+     * Statistiques (état, taux sur la fenêtre, appels refusés, transitions).
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("bufferedCalls", buffered);
+        stats.put("failureRate", buffered == 0 ? 0 : failedCount * 100 / buffered);
+        stats.put("slowCallRate", buffered == 0 ? 0 : slowCount * 100 / buffered);
+        stats.put("rejectedCalls", rejectedCalls.sum());
+        stats.put("staleOutcomes", staleOutcomes.sum());
+        stats.put("transitionsToOpen", toOpen.sum());
+        stats.put("transitionsToHalfOpen", toHalfOpen.sum());
+        stats.put("transitionsToClosed", toClosed.sum());
+        return stats;
+    }
+
+    private void transitionTo(State target) {
+        log.info("Face service circuit breaker: {} -> {}", state, target);
+        state = target;
+        generation++;
+        switch (target) {
+            case OPEN -> {
+                openedAt = System.currentTimeMillis();
+                toOpen.increment();
+            }
+            case HALF_OPEN -> {
+                probesStarted = 0;
+                probesSucceeded = 0;
+                toHalfOpen.increment();
+            }
+            case CLOSED -> {
+                next = 0;
+                buffered = 0;
+                failedCount = 0;
+                slowCount = 0;
+                toClosed.increment();
+            }
+        }
+    }
+}
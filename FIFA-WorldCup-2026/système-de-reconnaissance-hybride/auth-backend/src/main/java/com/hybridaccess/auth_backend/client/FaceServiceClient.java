@@ -1,40 +1,168 @@
 package com.hybridaccess.auth_backend.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hybridaccess.auth_backend.dto.face.*;
+import com.hybridaccess.auth_backend.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.pool.PoolStats;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 /**
  * Client for communicating with the face-service microservice.
+ * Uses the shared pooled RestTemplate (see HttpClientConfig).
+ *
+ * Async variants (verifyFaceAsync / enrollFaceAsync) run on the non-blocking httpclient5
+ * client: no thread waits for the inference round-trip. Results are completed on a small
+ * callback pool, never on the I/O threads.
+ *
+ * Every enroll / verify call (blocking or async) goes through:
+ * - the circuit breaker (FaceServiceCircuitBreaker): rejected at once while face-service is failing
+ * - a bulkhead: calls in flight capped by face-service.bulkhead.max-concurrent, excess calls fail fast
+ * Both rejections raise ServiceUnavailableException (503 + Retry-After).
+ *
+ * Binary variants (byte[] image) POST the raw JPEG/PNG to /api/face/*-binary
+ * (application/octet-stream): no Base64 (+33%) and no JSON String on either side.
+ *
+ * Optional micro-batching (face-service.batch.enabled): concurrent binary verifications are
+ * grouped by FaceVerifyBatcher into one /api/face/verify-batch call (multipart), which takes
+ * a single bulkhead slot and counts as one call for the circuit breaker.
  */
 @Slf4j
 @Service
 public class FaceServiceClient {
+
+    /**
+     * face-service MAX_BATCH_SIZE: larger /verify-batch calls get a 413
+     */
+    private static final int MAX_BATCH_SIZE = 32;
     
     private final RestTemplate restTemplate;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final PoolingAsyncClientConnectionManager asyncConnectionManager;
+    private final ObjectMapper objectMapper;
+    private final FaceServiceCircuitBreaker circuitBreaker;
     private final String faceServiceUrl;
     
+    @Value("${face-service.bulkhead.max-concurrent:64}")
+    private int maxConcurrent;
+    
+    @Value("${face-service.async.callback-threads:4}")
+    private int callbackThreads;
+    
+    @Value("${face-service.batch.enabled:false}")
+    private boolean batchEnabled;
+    
+    @Value("${face-service.batch.max-size:8}")
+    private int batchMaxSize;
+    
+    @Value("${face-service.batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+    
+    private Semaphore bulkhead;
+    private ExecutorService callbackExecutor;
+    private FaceVerifyBatcher verifyBatcher;  // null when batching is disabled
+    
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder binaryImageCalls = new LongAdder();
+    private final LongAdder binaryImageBytes = new LongAdder();
+    
     public FaceServiceClient(
             RestTemplate restTemplate,
+            PoolingHttpClientConnectionManager connectionManager,
+            CloseableHttpAsyncClient asyncClient,
+            PoolingAsyncClientConnectionManager asyncConnectionManager,
+            ObjectMapper objectMapper,
+            FaceServiceCircuitBreaker circuitBreaker,
             @Value("${face-service.url:http://localhost:8001}") String faceServiceUrl) {
         this.restTemplate = restTemplate;
+        this.connectionManager = connectionManager;
+        this.asyncClient = asyncClient;
+        this.asyncConnectionManager = asyncConnectionManager;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreaker;
         this.faceServiceUrl = faceServiceUrl;
         log.info("FaceServiceClient initialized with URL: {}", faceServiceUrl);
     }
     
+    @PostConstruct
+    void init() {
+        bulkhead = new Semaphore(maxConcurrent);
+        AtomicInteger counter = new AtomicInteger();
+        callbackExecutor = Executors.newFixedThreadPool(callbackThreads, r -> {
+            Thread t = new Thread(r, "face-callback-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (batchEnabled) {
+            if (batchMaxSize > MAX_BATCH_SIZE) {
+                log.warn("⚠️ face-service.batch.max-size={} exceeds face-service MAX_BATCH_SIZE, using {}",
+                        batchMaxSize, MAX_BATCH_SIZE);
+                batchMaxSize = MAX_BATCH_SIZE;
+            }
+            verifyBatcher = new FaceVerifyBatcher(batchMaxSize, batchMaxWaitMs, this::verifyBatchAsync);
+            log.info("Face verification batching enabled: up to {} images or {} ms", batchMaxSize, batchMaxWaitMs);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (verifyBatcher != null) {
+            verifyBatcher.shutdown();
+        }
+        callbackExecutor.shutdownNow();
+    }
+    
     /**
      * Enroll a user's face by sending their image to the face-service.
      *
      * @param userId User identifier
      * @param imageBase64 Base64-encoded face image
      * @return FaceEnrollResponse with success status
+     * @throws ServiceUnavailableException if the circuit is open or the bulkhead is full
      * @throws RuntimeException if face-service is unavailable or returns error
      */
     public FaceEnrollResponse enrollFace(String userId, String imageBase64) {
+        long permission = acquire();
+        long start = System.nanoTime();
+        boolean failure = false;
         try {
             String url = faceServiceUrl + "/api/face/enroll";
             
@@ -62,8 +190,11 @@ public class FaceServiceClient {
             }
             
         } catch (RestClientException e) {
+            failure = isServiceFailure(e);
             log.error("Error communicating with face-service during enrollment: {}", e.getMessage());
             throw new RuntimeException("Face service unavailable, please try later", e);
+        } finally {
+            release(permission, failure, start);
         }
     }
     
@@ -73,9 +204,13 @@ public class FaceServiceClient {
      * @param userId User identifier
      * @param imageBase64 Base64-encoded face image to verify
      * @return FaceVerifyResponse with match result and confidence
+     * @throws ServiceUnavailableException if the circuit is open or the bulkhead is full
      * @throws RuntimeException if face-service is unavailable or returns error
      */
     public FaceVerifyResponse verifyFace(String userId, String imageBase64) {
+        long permission = acquire();
+        long start = System.nanoTime();
+        boolean failure = false;
         try {
             String url = faceServiceUrl + "/api/face/verify";
             
@@ -104,8 +239,11 @@ public class FaceServiceClient {
             }
             
         } catch (RestClientException e) {
+            failure = isServiceFailure(e);
             log.error("Error communicating with face-service during verification: {}", e.getMessage());
             throw new RuntimeException("Face service unavailable, please try later", e);
+        } finally {
+            release(permission, failure, start);
         }
     }
     
@@ -124,4 +262,314 @@ public class FaceServiceClient {
             return false;
         }
     }
+    
+    /**
+     * Enroll a user's face without blocking the calling thread.
+     *
+     * @return Future completed with the FaceEnrollResponse, or exceptionally if face-service
+     *         is unavailable (ServiceUnavailableException when rejected by the circuit breaker
+     *         or the bulkhead) or the enrollment failed
+     */
+    public CompletableFuture<FaceEnrollResponse> enrollFaceAsync(String userId, String imageBase64) {
+        FaceEnrollRequest request = FaceEnrollRequest.builder()
+                .userId(userId)
+                .imageBase64(imageBase64)
+                .build();
+        
+        log.info("Enrolling face for user (async): {}", userId);
+        
+        return postAsync("/api/face/enroll", request, FaceEnrollResponse.class, body -> {
+            if (!body.isSuccess()) {
+                log.error("Face enrollment failed for user: {}", userId);
+                throw new RuntimeException("Face enrollment failed");
+            }
+            log.info("Face enrolled successfully for user: {}", userId);
+            return body;
+        });
+    }
+    
+    /**
+     * Verify a face image without blocking the calling thread.
+     * Cancelling the returned future aborts the HTTP exchange.
+     *
+     * @return Future completed with the FaceVerifyResponse, or exceptionally if face-service
+     *         is unavailable (ServiceUnavailableException when rejected by the circuit breaker
+     *         or the bulkhead)
+     */
+    public CompletableFuture<FaceVerifyResponse> verifyFaceAsync(String userId, String imageBase64) {
+        FaceVerifyRequest request = FaceVerifyRequest.builder()
+                .userId(userId)
+                .imageBase64(imageBase64)
+                .build();
+        
+        log.info("Verifying face for user (async): {}", userId);
+        
+        return postAsync("/api/face/verify", request, FaceVerifyResponse.class, body -> {
+            log.info("Face verification result for user {}: match={}, confidence={}",
+                    userId, body.isMatch(), body.getConfidence());
+            return body;
+        });
+    }
+    
+    /**
+     * Enroll a user's face from the raw image bytes, without blocking the calling thread.
+     *
+     * @param image Encoded image (JPEG/PNG), sent as is
+     * @return Future completed as {@link #enrollFaceAsync(String, String)}
+     */
+    public CompletableFuture<FaceEnrollResponse> enrollFaceAsync(String userId, byte[] image) {
+        log.info("Enrolling face for user (async, {} bytes): {}", image.length, userId);
+        
+        return postBinaryAsync("/api/face/enroll-binary", userId, image, FaceEnrollResponse.class, body -> {
+            if (!body.isSuccess()) {
+                log.error("Face enrollment failed for user: {}", userId);
+                throw new RuntimeException("Face enrollment failed");
+            }
+            log.info("Face enrolled successfully for user: {}", userId);
+            return body;
+        });
+    }
+    
+    /**
+     * Verify a face from the raw image bytes, without blocking the calling thread.
+     * Cancelling the returned future aborts the HTTP exchange (batching: removes the image
+     * from its batch, or aborts the batch call once all its callers gave up).
+     *
+     * @param image Encoded image (JPEG/PNG), sent as is
+     * @return Future completed as {@link #verifyFaceAsync(String, String)}
+     */
+    public CompletableFuture<FaceVerifyResponse> verifyFaceAsync(String userId, byte[] image) {
+        log.info("Verifying face for user (async, {} bytes): {}", image.length, userId);
+        
+        if (verifyBatcher != null) {
+            binaryImageCalls.increment();
+            binaryImageBytes.add(image.length);
+            return verifyBatcher.submit(userId, image);
+        }
+        
+        return postBinaryAsync("/api/face/verify-binary", userId, image, FaceVerifyResponse.class, body -> {
+            log.info("Face verification result for user {}: match={}, confidence={}",
+                    userId, body.isMatch(), body.getConfidence());
+            return body;
+        });
+    }
+    
+    /**
+     * Sends a batch of verifications as one multipart call (userIds[i] goes with images[i]).
+     */
+    private CompletableFuture<FaceVerifyBatchResponse> verifyBatchAsync(List<FaceVerifyBatcher.Item> items) {
+        byte[] body;
+        ContentType contentType;
+        try {
+            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+            int imageBytes = 0;
+            for (FaceVerifyBatcher.Item item : items) {
+                builder.addTextBody("userIds", item.userId(), ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8));
+                imageBytes += item.image().length;
+            }
+            for (FaceVerifyBatcher.Item item : items) {
+                builder.addBinaryBody("images", item.image(), ContentType.APPLICATION_OCTET_STREAM, "face.jpg");
+            }
+            HttpEntity entity = builder.build();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(imageBytes + 256 * items.size());
+            entity.writeTo(buffer);
+            body = buffer.toByteArray();
+            contentType = ContentType.parse(entity.getContentType());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Face service unavailable, please try later", e));
+        }
+        
+        log.info("Verifying batch of {} face(s) (async, {} bytes)", items.size(), body.length);
+        return execute(faceServiceUrl + "/api/face/verify-batch", body, contentType,
+                FaceVerifyBatchResponse.class, Function.identity());
+    }
+    
+    /**
+     * POSTs a JSON body on the non-blocking client.
+     */
+    private <T, R> CompletableFuture<R> postAsync(String path, Object request, Class<T> responseType,
+                                                  Function<T, R> onResponse) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Face service unavailable, please try later", e));
+        }
+        return execute(faceServiceUrl + path, json, ContentType.APPLICATION_JSON, responseType, onResponse);
+    }
+    
+    /**
+     * POSTs the image bytes as the request body (userId in the query string). The array is
+     * handed to the client as is: no copy, no encoding.
+     */
+    private <T, R> CompletableFuture<R> postBinaryAsync(String path, String userId, byte[] image,
+                                                        Class<T> responseType, Function<T, R> onResponse) {
+        binaryImageCalls.increment();
+        binaryImageBytes.add(image.length);
+        String uri = faceServiceUrl + path + "?userId=" + URLEncoder.encode(userId, StandardCharsets.UTF_8);
+        return execute(uri, image, ContentType.APPLICATION_OCTET_STREAM, responseType, onResponse);
+    }
+    
+    /**
+     * Runs a POST on the non-blocking client, through the circuit breaker and the bulkhead.
+     * Cancelling or timing out the returned future (onResponse stage) aborts the exchange.
+     */
+    private <T, R> CompletableFuture<R> execute(String uri, byte[] body, ContentType contentType,
+                                                Class<T> responseType, Function<T, R> onResponse) {
+        long permission;
+        try {
+            permission = acquire();
+        } catch (ServiceUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        long start = System.nanoTime();
+        AtomicBoolean finished = new AtomicBoolean();
+        // Outcome recorded once: true = face-service failure, false = success, null = cancelled by the caller
+        Consumer<Boolean> finish = failure -> {
+            if (finished.compareAndSet(false, true)) {
+                release(permission, failure, start);
+            }
+        };
+        
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            Future<SimpleHttpResponse> exchange = asyncClient.execute(
+                    SimpleRequestBuilder.post(uri)
+                            .setBody(body, contentType)
+                            .build(),
+                    new FutureCallback<>() {
+                        @Override
+                        public void completed(SimpleHttpResponse response) {
+                            finish.accept(response.getCode() >= 500);
+                            callbackExecutor.execute(() -> complete(result, response, responseType));
+                        }
+                        
+                        @Override
+                        public void failed(Exception e) {
+                            finish.accept(true);
+                            log.error("Error communicating with face-service: {}", e.getMessage());
+                            callbackExecutor.execute(() -> result.completeExceptionally(
+                                    new RuntimeException("Face service unavailable, please try later", e)));
+                        }
+                        
+                        @Override
+                        public void cancelled() {
+                            finish.accept(null);
+                            result.cancel(false);
+                        }
+                    });
+            // Caller gave up: a timeout counts as a face-service failure, a cancellation does not.
+            // Either way, abort the exchange and free the connection
+            result.whenComplete((value, error) -> {
+                if (error != null && !exchange.isDone()) {
+                    finish.accept(error instanceof TimeoutException ? Boolean.TRUE : null);
+                    exchange.cancel(true);
+                }
+            });
+        } catch (RuntimeException e) {
+            finish.accept(null);
+            result.completeExceptionally(new RuntimeException("Face service unavailable, please try later", e));
+        }
+        
+        CompletableFuture<R> mapped = result.thenApply(onResponse);
+        mapped.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        return mapped;
+    }
+    
+    /**
+     * Takes a circuit breaker permission, then a bulkhead slot.
+     *
+     * @return The circuit breaker permission, to hand back to {@link #release}
+     * @throws ServiceUnavailableException if either rejects the call
+     */
+    private long acquire() {
+        long permission = circuitBreaker.tryAcquirePermission();
+        if (permission == FaceServiceCircuitBreaker.REJECTED) {
+            throw new ServiceUnavailableException("Face service unavailable, please try later",
+                    circuitBreaker.getRetryAfterSeconds());
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.onIgnored(permission);
+            bulkheadRejected.increment();
+            log.warn("⚠️ Face service call rejected: {} calls already in flight", maxConcurrent);
+            throw new ServiceUnavailableException("Face service busy, please try later", 1);
+        }
+        return permission;
+    }
+    
+    /**
+     * Frees the bulkhead slot and reports the outcome to the circuit breaker.
+     *
+     * @param permission Value returned by {@link #acquire()}
+     * @param failure true = face-service failure, false = success, null = no outcome (cancelled)
+     */
+    private void release(long permission, Boolean failure, long startNanos) {
+        bulkhead.release();
+        if (failure == null) {
+            circuitBreaker.onIgnored(permission);
+        } else {
+            circuitBreaker.onResult(permission, failure, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+    
+    /**
+     * Network errors, timeouts and 5xx count against face-service; 4xx (bad request) do not.
+     */
+    private static boolean isServiceFailure(RestClientException e) {
+        return !(e instanceof HttpClientErrorException);
+    }
+    
+    private <T> void complete(CompletableFuture<T> result, SimpleHttpResponse response, Class<T> responseType) {
+        try {
+            if (response.getCode() / 100 != 2) {
+                log.error("Face service returned HTTP {}", response.getCode());
+                result.completeExceptionally(new RuntimeException("Face service unavailable, please try later"));
+                return;
+            }
+            T body = objectMapper.readValue(response.getBodyBytes(), responseType);
+            if (body == null) {
+                result.completeExceptionally(new RuntimeException("Invalid response from face service"));
+                return;
+            }
+            result.complete(body);
+        } catch (IOException | RuntimeException e) {
+            log.error("Invalid response from face service: {}", e.getMessage());
+            result.completeExceptionally(new RuntimeException("Invalid response from face service", e));
+        }
+    }
+    
+    /**
+     * Connection pool utilisation (leased, idle, waiting for a connection, limit)
+     * for the blocking and async clients, bulkhead usage, binary image uploads, batching
+     * and circuit breaker state.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", poolStats(connectionManager.getTotalStats()));
+        stats.put("asyncPool", poolStats(asyncConnectionManager.getTotalStats()));
+        stats.put("bulkheadInUse", maxConcurrent - bulkhead.availablePermits());
+        stats.put("bulkheadMaxConcurrent", maxConcurrent);
+        stats.put("bulkheadRejected", bulkheadRejected.sum());
+        stats.put("binaryImageCalls", binaryImageCalls.sum());
+        stats.put("binaryImageBytes", binaryImageBytes.sum());
+        if (verifyBatcher != null) {
+            stats.put("batch", verifyBatcher.getStats());
+        }
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        return stats;
+    }
+    
+    private static Map<String, Object> poolStats(PoolStats total) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leased", total.getLeased());
+        stats.put("available", total.getAvailable());
+        stats.put("pending", total.getPending());
+        stats.put("max", total.getMax());
+        return stats;
+    }
 }
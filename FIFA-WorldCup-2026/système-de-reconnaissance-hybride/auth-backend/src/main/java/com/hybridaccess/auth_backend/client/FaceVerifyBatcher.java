@@ -0,0 +1,247 @@
+package com.hybridaccess.auth_backend.client;
+
+import com.hybridaccess.auth_backend.dto.face.FaceVerifyBatchResponse;
+import com.hybridaccess.auth_backend.dto.face.FaceVerifyResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Regroupement (micro-batching) des vérifications FACE concurrentes vers face-service.
+ *
+ * - Les demandes sont accumulées jusqu'à max-size éléments ou max-wait-ms après la première,
+ *   puis envoyées en un seul appel (/api/face/verify-batch)
+ * - Chaque résultat est rendu au future de son appelant ; une image invalide n'échoue que son élément
+ * - Un élément annulé (ou expiré) avant l'envoi est retiré du lot ; si tous les éléments d'un lot
+ *   envoyé sont abandonnés, l'échange HTTP est interrompu ; si l'un d'eux a expiré, l'appel du lot
+ *   échoue en TimeoutException (compté comme un échec par le circuit breaker) au lieu d'être annulé
+ *
+ * max-size / max-wait-ms règlent le compromis débit / latence : un lot plus grand amortit le coût
+ * par appel côté face-service, au prix d'une attente ajoutée d'au plus max-wait-ms.
+ */
+@Slf4j
+class FaceVerifyBatcher {
+
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final Function<List<Item>, CompletableFuture<FaceVerifyBatchResponse>> sender;
+    private final ScheduledExecutorService timer;
+
+    private List<Item> pending;
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder flushedFull = new LongAdder();
+    private final LongAdder flushedOnTimer = new LongAdder();
+    private final LongAdder droppedBeforeSend = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder callNanos = new LongAdder();
+    private final LongAccumulator maxCallNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param sender Envoie un lot et retourne la réponse de face-service (résultats dans l'ordre du lot)
+     */
+    FaceVerifyBatcher(int maxSize, long maxWaitMs,
+                      Function<List<Item>, CompletableFuture<FaceVerifyBatchResponse>> sender) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.sender = sender;
+        this.pending = new ArrayList<>(this.maxSize);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "face-batch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Ajoute une vérification au lot en cours.
+     *
+     * @return Future du résultat de cette image ; l'annuler la retire du lot si celui-ci n'est pas encore parti
+     */
+    CompletableFuture<FaceVerifyResponse> submit(String userId, byte[] image) {
+        Item item = new Item(userId, image, new CompletableFuture<>(), System.nanoTime());
+        List<Item> batch = null;
+        synchronized (this) {
+            pending.add(item);
+            if (pending.size() >= maxSize) {
+                batch = take();
+                flushedFull.increment();
+            } else if (pending.size() == 1) {
+                scheduledFlush = timer.schedule(this::flushOnTimer, maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return item.result();
+    }
+
+    /**
+     * Statistiques (taille moyenne des lots, cause d'envoi, attente ajoutée et durée des appels en ms).
+     */
+    Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        long itemCount = items.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxSize", maxSize);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("batches", batchCount);
+        stats.put("items", itemCount);
+        stats.put("avgBatchSize", batchCount > 0 ? (double) itemCount / batchCount : 0.0);
+        stats.put("flushedFull", flushedFull.sum());
+        stats.put("flushedOnTimer", flushedOnTimer.sum());
+        stats.put("droppedBeforeSend", droppedBeforeSend.sum());
+        stats.put("avgQueueWaitMs", itemCount > 0 ? toMillis(queueWaitNanos.sum() / itemCount) : 0.0);
+        stats.put("maxQueueWaitMs", toMillis(maxQueueWaitNanos.get()));
+        stats.put("avgBatchCallMs", batchCount > 0 ? toMillis(callNanos.sum() / batchCount) : 0.0);
+        stats.put("maxBatchCallMs", toMillis(maxCallNanos.get()));
+        return stats;
+    }
+
+    /**
+     * Retire le lot en cours (appelé sous le verrou).
+     */
+    private List<Item> take() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Item> batch = pending;
+        pending = new ArrayList<>(maxSize);
+        return batch;
+    }
+
+    private void flushOnTimer() {
+        List<Item> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = take();
+        }
+        flushedOnTimer.increment();
+        send(batch);
+    }
+
+    private void send(List<Item> batch) {
+        long now = System.nanoTime();
+        List<Item> live = new ArrayList<>(batch.size());
+        for (Item item : batch) {
+            if (item.result().isDone()) {
+                droppedBeforeSend.increment();
+            } else {
+                live.add(item);
+                long waited = now - item.enqueuedAt();
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulate(waited);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        batches.increment();
+        items.add(live.size());
+
+        CompletableFuture<FaceVerifyBatchResponse> call = sender.apply(live);
+        call.whenComplete((response, error) -> {
+            long elapsed = System.nanoTime() - now;
+            callNanos.add(elapsed);
+            maxCallNanos.accumulate(elapsed);
+            route(live, response, error);
+        });
+
+        // Tous les appelants ont abandonné (annulation, timeout) : inutile d'attendre la réponse.
+        // Un timeout signale un face-service trop lent : l'appel échoue (circuit breaker), il n'est pas annulé
+        AtomicInteger remaining = new AtomicInteger(live.size());
+        AtomicBoolean timedOut = new AtomicBoolean();
+        for (Item item : live) {
+            item.result().whenComplete((response, error) -> {
+                if (isTimeout(error)) {
+                    timedOut.set(true);
+                }
+                if (remaining.decrementAndGet() == 0 && !call.isDone()) {
+                    if (timedOut.get()) {
+                        call.completeExceptionally(new TimeoutException("All callers of the batch timed out"));
+                    } else {
+                        call.cancel(true);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Rend à chaque appelant son résultat (même position dans la réponse que dans le lot).
+     */
+    private void route(List<Item> batch, FaceVerifyBatchResponse response, Throwable error) {
+        if (error != null) {
+            batch.forEach(item -> item.result().completeExceptionally(error));
+            return;
+        }
+        List<FaceVerifyBatchResponse.Result> results = response.getResults();
+        if (results == null || results.size() != batch.size()) {
+            log.error("Face service returned {} result(s) for a batch of {}",
+                    results == null ? 0 : results.size(), batch.size());
+            RuntimeException invalid = new RuntimeException("Invalid response from face service");
+            batch.forEach(item -> item.result().completeExceptionally(invalid));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            FaceVerifyBatchResponse.Result result = results.get(i);
+            if (result.getError() != null) {
+                log.warn("❌ Face verification failed for user {}: {}", item.userId(), result.getError());
+                item.result().completeExceptionally(new RuntimeException("Face verification failed: " + result.getError()));
+                continue;
+            }
+            log.info("Face verification result for user {}: match={}, confidence={} (batch of {})",
+                    item.userId(), result.isMatch(), result.getConfidence(), batch.size());
+            item.result().complete(FaceVerifyResponse.builder()
+                    .match(result.isMatch())
+                    .confidence(result.getConfidence())
+                    .autoEnrolled(result.getAutoEnrolled())
+                    .message(result.getMessage())
+                    .build());
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Une vérification en attente : utilisateur, image, future de l'appelant, date d'arrivée
+     */
+    record Item(String userId, byte[] image, CompletableFuture<FaceVerifyResponse> result, long enqueuedAt) {
+    }
+}
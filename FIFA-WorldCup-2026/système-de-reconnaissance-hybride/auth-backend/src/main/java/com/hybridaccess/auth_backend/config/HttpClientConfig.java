@@ -1,17 +1,138 @@
 package com.hybridaccess.auth_backend.config;
 
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Configuration for HTTP clients.
+ *
+ * Pool de connexions (httpclient5) partagé par tous les appels vers face-service :
+ * - Keep-alive plafonné sous le délai du serveur (uvicorn ferme les connexions inactives après 5 s)
+ * - Connexions limitées par route et au total ; attente d'une connexion libre bornée
+ * - Timeouts de connexion et de réponse configurables (face-service.http.*)
+ *
+ * Variante asynchrone (mêmes réglages, pool distinct) : quelques threads d'I/O non bloquants
+ * servent tous les appels en cours, aucun thread n'attend la réponse de face-service.
  */
 @Configuration
 public class HttpClientConfig {
-    
+
+    @Value("${face-service.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${face-service.http.max-connections-per-route:32}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${face-service.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${face-service.http.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    @Value("${face-service.http.pool-acquire-timeout-ms:1000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${face-service.http.keep-alive-ms:4000}")
+    private long keepAliveMs;
+
+    @Value("${face-service.http.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMs;
+
+    @Value("${face-service.async.io-threads:2}")
+    private int ioThreads;
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig())
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @Bean
+    public PoolingAsyncClientConnectionManager asyncConnectionManager() {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig())
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpAsyncClient httpAsyncClient(PoolingAsyncClientConnectionManager asyncConnectionManager) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .setSoTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+                .build();
+        client.start();
+        return client;
+    }
+
+    private ConnectionConfig connectionConfig() {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                .build();
+    }
+
+    private RequestConfig requestConfig() {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Durée annoncée par le serveur (Keep-Alive), plafonnée à keep-alive-ms
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAliveMs);
+        return (response, context) -> {
+            TimeValue announced = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(announced) && announced.compareTo(maxKeepAlive) < 0 ? announced : maxKeepAlive;
+        };
     }
 }
@@ -1,5 +1,6 @@
 package com.hybridaccess.auth_backend.config;
 
+import com.hybridaccess.auth_backend.security.BoundedPasswordEncoder;
 import com.hybridaccess.auth_backend.security.CustomUserDetailsService;
 import com.hybridaccess.auth_backend.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
@@ -13,8 +14,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -31,12 +30,9 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     /**
-     * Encodeur de mot de passe BCrypt.
+     * Encodeur de mot de passe BCrypt, exécuté sur un pool dédié et borné.
      */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    private final BoundedPasswordEncoder passwordEncoder;
 
     /**
      * Provider d'authentification.
@@ -45,7 +41,8 @@ public class SecurityConfig {
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(customUserDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(customUserDetailsService); // ✅ Rehash transparent
         return authProvider;
     }
 
@@ -72,6 +69,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/dev/**").permitAll()  // Dev endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/v1/health").permitAll()
+                        .requestMatchers("/.well-known/jwks.json").permitAll()  // Clés publiques JWT
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
                         
@@ -7,6 +7,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,8 +26,10 @@ public class AccessLevelController {
     /**
      * Crée un nouveau niveau d'accès.
      * POST /api/v1/access-levels
+     * ✅ Réservé aux administrateurs : les niveaux définissent la politique MFA
      */
     @PostMapping
+    @PreAuthorize("hasAuthority('ROLE_LEVEL_4')")
     public ResponseEntity<AccessLevelReadDTO> createAccessLevel(@Valid @RequestBody AccessLevelCreateDTO dto) {
         AccessLevelReadDTO created = accessLevelService.createAccessLevel(dto);
         return new ResponseEntity<>(created, HttpStatus.CREATED);
@@ -62,11 +65,27 @@ public class AccessLevelController {
         return ResponseEntity.ok(level);
     }
 
+    /**
+     * Met à jour un niveau d'accès (facteurs MFA requis appliqués sans redéploiement).
+     * PUT /api/v1/access-levels/{id}
+     * ✅ Réservé aux administrateurs
+     */
+    @PutMapping("/{id}")
+    @PreAuthorize("hasAuthority('ROLE_LEVEL_4')")
+    public ResponseEntity<AccessLevelReadDTO> updateAccessLevel(
+            @PathVariable Long id,
+            @Valid @RequestBody AccessLevelCreateDTO dto) {
+        AccessLevelReadDTO updated = accessLevelService.updateAccessLevel(id, dto);
+        return ResponseEntity.ok(updated);
+    }
+
     /**
      * Supprime un niveau d'accès.
      * DELETE /api/v1/access-levels/{id}
+     * ✅ Réservé aux administrateurs
      */
     @DeleteMapping("/{id}")
+    @PreAuthorize("hasAuthority('ROLE_LEVEL_4')")
     public ResponseEntity<Void> deleteAccessLevel(@PathVariable Long id) {
         accessLevelService.deleteAccessLevel(id);
         return ResponseEntity.noContent().build();
@@ -2,9 +2,12 @@ package com.hybridaccess.auth_backend.controller;
 
 import com.hybridaccess.auth_backend.dto.auth.LoginRequest;
 import com.hybridaccess.auth_backend.dto.auth.LoginResponse;
+import com.hybridaccess.auth_backend.dto.auth.RefreshTokenRequest;
 import com.hybridaccess.auth_backend.dto.auth.RegisterRequest;
 import com.hybridaccess.auth_backend.dto.user.UserReadDTO;
+import com.hybridaccess.auth_backend.security.LoginThrottle;
 import com.hybridaccess.auth_backend.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -21,7 +24,8 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-    private final com.hybridaccess.auth_backend.security.OtpService otpService;
+    private final LoginThrottle loginThrottle;
+    private final com.hybridaccess.auth_backend.service.TotpService totpService;
     private final com.hybridaccess.auth_backend.repository.UserRepository userRepository;
 
     /**
@@ -41,11 +45,42 @@ public class AuthController {
      * Retourne soit un JWT si pas de MFA requis, soit la liste des facteurs MFA à valider.
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                               HttpServletRequest request) {
+        // ✅ Limitation par email et par IP avant toute vérification BCrypt (429 si dépassée)
+        loginThrottle.check(loginRequest.getEmail(), loginThrottle.resolveClientIp(request));
+
         LoginResponse response = authService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Renouvelle le JWT à partir d'un refresh token (rotation).
+     * POST /api/v1/auth/refresh
+     * 
+     * Pas de vérification BCrypt : le re-login complet n'est plus nécessaire à l'expiration du JWT.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        LoginResponse response = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Révoque le refresh token (et toute sa famille) ainsi que le JWT courant.
+     * POST /api/v1/auth/logout
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @Valid @RequestBody RefreshTokenRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authService.logout(request.getRefreshToken(), accessToken);
+        return ResponseEntity.noContent().build();
+    }
+
     /* 
      * REMOVED: Old verifyMfa endpoint replaced by unified MfaController
      * Use POST /api/v1/auth/mfa/verify in MfaController instead
@@ -65,11 +100,10 @@ public class AuthController {
 
         // Générer secret si absent
         if (user.getOtpSecret() == null || user.getOtpSecret().isBlank()) {
-            user.setOtpSecret(otpService.generateBase32Secret());
-            userRepository.save(user);
+            totpService.storeSecret(user, totpService.generateSecret());
         }
 
-        String uri = otpService.buildOtpAuthUri("HybridAccess", user.getEmail(), user.getOtpSecret());
+        String uri = totpService.generateQrCodeUri(user.getEmail(), user.getOtpSecret());
         return ResponseEntity.ok(
             new com.hybridaccess.auth_backend.dto.otp.OtpSetupResponse(user.getOtpSecret(), uri)
         );
@@ -91,13 +125,12 @@ public class AuthController {
             return ResponseEntity.badRequest().body("OTP not setup. Call /mfa/otp/setup first.");
         }
 
-        boolean ok = otpService.verifyCode(user.getOtpSecret(), request.code());
+        boolean ok = totpService.validateCode(user.getOtpSecret(), request.code());
         if (!ok) {
             return ResponseEntity.status(400).body("Invalid OTP code");
         }
 
-        user.setOtpEnabled(true);
-        userRepository.save(user);
+        totpService.enableOtp(user, null);
         return ResponseEntity.ok("OTP enabled successfully");
     }
 
@@ -0,0 +1,38 @@
+package com.hybridaccess.auth_backend.controller;
+
+import com.hybridaccess.auth_backend.security.JwtKeyManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Controller REST publiant les clés publiques de signature JWT (JWKS).
+ * Permet aux tourniquets et autres services de vérifier les tokens localement.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyManager jwtKeyManager;
+
+    @Value("${jwt.signing.jwks-max-age:15m}")
+    private Duration jwksMaxAge;
+
+    /**
+     * Retourne le JWKS (clés courante, suivante et retirées).
+     * GET /.well-known/jwks.json
+     * GET /api/v1/auth/jwks
+     */
+    @GetMapping(value = {"/.well-known/jwks.json", "/api/v1/auth/jwks"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge).cachePublic())
+                .body(jwtKeyManager.buildJwksJson());
+    }
+}
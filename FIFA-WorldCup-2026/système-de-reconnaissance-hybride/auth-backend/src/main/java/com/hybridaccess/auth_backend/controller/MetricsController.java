@@ -0,0 +1,64 @@
+package com.hybridaccess.auth_backend.controller;
+
+import com.hybridaccess.auth_backend.client.FaceImageNormalizer;
+import com.hybridaccess.auth_backend.client.FaceServiceClient;
+import com.hybridaccess.auth_backend.security.BoundedPasswordEncoder;
+import com.hybridaccess.auth_backend.security.LoginThrottle;
+import com.hybridaccess.auth_backend.security.TokenRevocationList;
+import com.hybridaccess.auth_backend.security.VerifiedTokenCache;
+import com.hybridaccess.auth_backend.service.FailedLoginService;
+import com.hybridaccess.auth_backend.service.MfaPolicy;
+import com.hybridaccess.auth_backend.service.MfaSessionService;
+import com.hybridaccess.auth_backend.service.TotpService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller exposant les compteurs internes (caches, pools, limiteurs).
+ * Base URL: /api/v1/metrics
+ */
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final FailedLoginService failedLoginService;
+    private final LoginThrottle loginThrottle;
+    private final MfaSessionService mfaSessionService;
+    private final MfaPolicy mfaPolicy;
+    private final TotpService totpService;
+    private final FaceServiceClient faceServiceClient;
+    private final FaceImageNormalizer faceImageNormalizer;
+
+    /**
+     * Retourne l'ensemble des compteurs.
+     * GET /api/v1/metrics
+     * ✅ Réservé aux administrateurs (niveau 4 uniquement)
+     */
+    @GetMapping
+    @PreAuthorize("hasAuthority('ROLE_LEVEL_4')")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("tokenCache", verifiedTokenCache.getStats());
+        metrics.put("tokenRevocation", tokenRevocationList.getStats());
+        metrics.put("passwordHashing", passwordEncoder.getStats());
+        metrics.put("failedLogins", failedLoginService.getStats());
+        metrics.put("loginThrottle", loginThrottle.getStats());
+        metrics.put("mfaSessions", mfaSessionService.getStats());
+        metrics.put("mfaPolicy", mfaPolicy.getStats());
+        metrics.put("otp", totpService.getStats());
+        metrics.put("faceServiceHttp", faceServiceClient.getStats());
+        metrics.put("faceImageNormalizer", faceImageNormalizer.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+}
@@ -2,22 +2,51 @@ package com.hybridaccess.auth_backend.controller;
 
 import com.hybridaccess.auth_backend.dto.MfaVerifyRequest;
 import com.hybridaccess.auth_backend.dto.MfaVerifyResponse;
+import com.hybridaccess.auth_backend.entity.MfaFactor;
 import com.hybridaccess.auth_backend.entity.MfaSession;
 import com.hybridaccess.auth_backend.entity.User;
 import com.hybridaccess.auth_backend.repository.UserRepository;
 import com.hybridaccess.auth_backend.security.JwtTokenProvider;
+import com.hybridaccess.auth_backend.service.MfaFactorVerifier;
 import com.hybridaccess.auth_backend.service.MfaSessionService;
-import com.hybridaccess.auth_backend.service.TotpService;
+import com.hybridaccess.auth_backend.service.RefreshTokenService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unified MFA Controller for all MFA verification
- * Handles both OTP and FACE verification in a single endpoint
+ * Handles both OTP and FACE verification in a single endpoint, one factor or several at once
+ *
+ * FACE image: multipart/form-data ("image" part, raw JPEG/PNG) preferred over JSON imageBase64;
+ * either way it is forwarded to face-service as bytes, capped by mfa.face-image.max-bytes (413)
+ * The JSON body itself is capped before Jackson reads it (MfaVerifyBodyLimitFilter)
+ *
+ * Factors are recorded (DB update, JWT signing, refresh token insert) on a dedicated bounded pool
+ * (mfa.completion.*): face-service callback threads only complete futures; a full pool answers 503
  */
 @RestController
 @RequestMapping("/api/v1/auth/mfa")
@@ -27,131 +56,244 @@ import java.util.UUID;
 public class MfaController {
 
     private final MfaSessionService mfaSessionService;
-    private final TotpService totpService;
+    private final MfaFactorVerifier mfaFactorVerifier;
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenService refreshTokenService;
+
+    @Value("${mfa.face-image.max-bytes:2097152}")
+    private long maxImageBytes;
+
+    @Value("${mfa.completion.pool-size:8}")
+    private int completionPoolSize;
+
+    @Value("${mfa.completion.queue-capacity:256}")
+    private int completionQueueCapacity;
+
+    private ThreadPoolExecutor completionExecutor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        completionExecutor = new ThreadPoolExecutor(
+                completionPoolSize, completionPoolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(completionQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "mfa-completion-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("MFA completion pool: {} thread(s), queue capacity {}", completionPoolSize, completionQueueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        completionExecutor.shutdown();
+    }
 
     /**
      * Unified endpoint to verify any MFA factor (OTP or FACE)
+     * Several factors can be sent at once (factorTypes): they are verified concurrently
+     * and recorded together, saving a round-trip for levels requiring both
+     * Asynchronous: the request thread is released while face-service answers
      * 
      * Returns mfaCompleted=false if more factors are needed
      * Returns mfaCompleted=true + JWT token when all factors verified
      */
     @PostMapping("/verify")
-    public ResponseEntity<MfaVerifyResponse> verifyMfaFactor(@RequestBody MfaVerifyRequest request) {
+    public CompletableFuture<ResponseEntity<MfaVerifyResponse>> verifyMfaFactor(@RequestBody MfaVerifyRequest request) {
+        // Only the decoded bytes are kept while face-service answers
+        String imageBase64 = request.getImageBase64();
+        request.setImageBase64(null);
+        // Decoded size known from the length: oversized images are rejected before decoding
+        if (imageBase64 != null && (long) imageBase64.length() * 3 / 4 > maxImageBytes + 64) {
+            return CompletableFuture.completedFuture(imageTooLarge());
+        }
+        byte[] image;
         try {
-            UUID sessionId = request.getMfaSessionId();
-            String factorType = request.getFactorType();
-
-            log.info("🔐 MFA verification attempt: session={}, factor={}", sessionId, factorType);
+            image = decodeImage(imageBase64);
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Invalid base64 image: {}", e.getMessage());
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(createErrorResponse("Invalid image encoding")));
+        }
+        if (image != null && image.length > maxImageBytes) {
+            return CompletableFuture.completedFuture(imageTooLarge());
+        }
+        return verify(request, image);
+    }
 
-            // Get session
-            MfaSession session = mfaSessionService.findById(sessionId);
+    /**
+     * Same verification with the FACE image as a binary multipart part ("image"):
+     * no Base64 (+33%) and no JSON String, the bytes go to face-service as received
+     */
+    @PostMapping(value = "/verify", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<MfaVerifyResponse>> verifyMfaFactorMultipart(
+            @RequestParam(value = "sessionId", required = false) UUID sessionId,
+            @RequestParam(value = "mfaSessionToken", required = false) String mfaSessionToken,
+            @RequestParam(value = "factorType", required = false) String factorType,
+            @RequestParam(value = "factorTypes", required = false) List<String> factorTypes,
+            @RequestParam(value = "otpCode", required = false) String otpCode,
+            @RequestPart(value = "image", required = false) MultipartFile image) {
+        MfaVerifyRequest request = new MfaVerifyRequest(sessionId, mfaSessionToken, factorType, factorTypes, otpCode, null);
+        if (image == null || image.isEmpty()) {
+            return verify(request, null);
+        }
+        if (image.getSize() > maxImageBytes) {
+            return CompletableFuture.completedFuture(imageTooLarge());
+        }
+        try {
+            return verify(request, image.getBytes());
+        } catch (IOException e) {
+            log.warn("❌ Unreadable image part: {}", e.getMessage());
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(createErrorResponse("Unreadable image")));
+        }
+    }
 
-            if (!session.isValid()) {
-                log.warn("❌ MFA session expired: {}", sessionId);
-                return ResponseEntity.status(401).body(createErrorResponse("MFA session expired. Please login again."));
-            }
+    /**
+     * Verifies the requested factors (image already decoded to bytes)
+     */
+    private CompletableFuture<ResponseEntity<MfaVerifyResponse>> verify(MfaVerifyRequest request, byte[] image) {
+        try {
+            List<String> requestedTypes = request.getFactorTypes() != null && !request.getFactorTypes().isEmpty()
+                    ? request.getFactorTypes()
+                    : Collections.singletonList(request.getFactorType());
 
-            // Verify the factor
-            boolean verified = false;
-            
-            switch (factorType.toUpperCase()) {
-                case "OTP":
-                    verified = verifyOtpFactor(session, request.getOtpCode());
-                    break;
-                    
-                case "FACE":
-                    verified = verifyFaceFactor(session, request.getImageBase64());
-                    break;
-                    
-                default:
+            Set<MfaFactor> factors = EnumSet.noneOf(MfaFactor.class);
+            for (String factorType : requestedTypes) {
+                Optional<MfaFactor> factor = MfaFactor.fromName(factorType);
+                if (factor.isEmpty()) {
                     log.warn("❌ Unknown factor type: {}", factorType);
-                    return ResponseEntity.badRequest().body(createErrorResponse("Invalid factor type: " + factorType));
+                    return CompletableFuture.completedFuture(
+                            ResponseEntity.badRequest().body(createErrorResponse("Invalid factor type: " + factorType)));
+                }
+                factors.add(factor.get());
             }
+            List<String> factorNames = factors.stream().map(MfaFactor::name).toList();
+
+            // Get session (stored session, or state carried by the encrypted token)
+            MfaSession session = mfaSessionService.resolve(request.getMfaSessionId(), request.getMfaSessionToken());
 
-            if (!verified) {
-                log.warn("❌ Factor verification failed: {}", factorType);
-                return ResponseEntity.status(401).body(createErrorResponse("Invalid " + factorType + " verification"));
+            log.info("🔐 MFA verification attempt: session={}, factors={}", session.getSessionId(), factorNames);
+
+            if (!session.isValid()) {
+                log.warn("❌ MFA session expired: {}", session.getSessionId());
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.status(401).body(createErrorResponse("MFA session expired. Please login again.")));
             }
 
-            // Mark factor as verified
-            session = mfaSessionService.verifyFactor(sessionId, factorType.toUpperCase());
+            // Verify the factors (concurrently when several are provided, FACE without blocking),
+            // then record them off the face-service callback threads
+            return mfaFactorVerifier.verify(session, factors, request.getOtpCode(), image)
+                    .thenApplyAsync(failed -> recordFactors(session, request.getMfaSessionToken(), factorNames, failed),
+                            completionExecutor)
+                    .exceptionally(this::handleError);
 
-            // Check if MFA is complete
-            if (session.isComplete()) {
-                log.info("✅ MFA COMPLETED for session {}. Issuing final JWT token.", sessionId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(handleError(e));
+        }
+    }
 
-                // Get user
-                User user = userRepository.findById(session.getUserId())
-                        .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Records the verified factors, and issues the final JWT once MFA is complete
+     */
+    private ResponseEntity<MfaVerifyResponse> recordFactors(MfaSession session, String sessionToken,
+                                                            List<String> factorNames, Optional<MfaFactor> failed) {
+        UUID sessionId = session.getSessionId();
 
-                // Generate FINAL JWT token with MFA claims
-                String token = jwtTokenProvider.generateTokenWithMfaClaims(user, session.getVerifiedFactors());
+        if (failed.isPresent()) {
+            log.warn("❌ Factor verification failed: {}", failed.get());
+            return ResponseEntity.status(401).body(createErrorResponse("Invalid " + failed.get() + " verification"));
+        }
 
-                // Delete session (no longer needed)
-                mfaSessionService.deleteSession(sessionId);
+        // Mark all factors as verified in a single update
+        session = mfaSessionService.verifyFactors(session, sessionToken, factorNames);
 
-                MfaVerifyResponse response = new MfaVerifyResponse();
-                response.setMfaCompleted(true);
-                response.setVerifiedFactors(session.getVerifiedFactors());
-                response.setRequiredFactors(session.getRequiredFactors());
-                response.setToken(token);
-                response.setUser(user); // Can be simplified to UserDTO
-                response.setMessage("MFA completed successfully");
+        // Check if MFA is complete
+        if (session.isComplete()) {
+            log.info("✅ MFA COMPLETED for session {}. Issuing final JWT token.", sessionId);
 
-                return ResponseEntity.ok(response);
-            } else {
-                // More factors needed
-                log.info("⏳ MFA partial completion. Verified: {}, Required: {}",
-                        session.getVerifiedFactors(), session.getRequiredFactors());
+            // Get user
+            User user = userRepository.findById(session.getUserId())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
 
-                MfaVerifyResponse response = new MfaVerifyResponse();
-                response.setMfaCompleted(false);
-                response.setVerifiedFactors(session.getVerifiedFactors());
-                response.setRequiredFactors(session.getRequiredFactors());
-                response.setMessage("Factor verified. Please complete remaining factors.");
+            // Generate FINAL JWT token with MFA claims
+            String token = jwtTokenProvider.generateTokenWithMfaClaims(user, session.getVerifiedFactors());
 
-                return ResponseEntity.ok(response);
-            }
+            // Delete session (no longer needed)
+            mfaSessionService.deleteSession(sessionId);
 
-        } catch (Exception e) {
-            log.error("❌ MFA verification error", e);
-            return ResponseEntity.status(500).body(createErrorResponse("MFA verification failed: " + e.getMessage()));
+            MfaVerifyResponse response = new MfaVerifyResponse();
+            response.setMfaCompleted(true);
+            response.setVerifiedFactors(session.getVerifiedFactors());
+            response.setRequiredFactors(session.getRequiredFactors());
+            response.setToken(token);
+            response.setRefreshToken(refreshTokenService.issue(user, session.getVerifiedFactors()));
+            response.setUser(user); // Can be simplified to UserDTO
+            response.setMessage("MFA completed successfully");
+
+            return ResponseEntity.ok(response);
+        } else {
+            // More factors needed
+            log.info("⏳ MFA partial completion. Verified: {}, Required: {}",
+                    session.getVerifiedFactors(), session.getRequiredFactors());
+
+            MfaVerifyResponse response = new MfaVerifyResponse();
+            response.setMfaCompleted(false);
+            response.setVerifiedFactors(session.getVerifiedFactors());
+            response.setRequiredFactors(session.getRequiredFactors());
+            response.setMfaSessionToken(mfaSessionService.issueToken(session));
+            response.setMessage("Factor verified. Please complete remaining factors.");
+
+            return ResponseEntity.ok(response);
         }
     }
 
     /**
-     * Verifies OTP factor
+     * Maps a failure (synchronous or from the async chain) to an error response
      */
-    private boolean verifyOtpFactor(MfaSession session, String otpCode) {
-        User user = userRepository.findById(session.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!user.getOtpEnabled() || user.getOtpSecret() == null) {
-            log.warn("❌ OTP not enabled for user {}", user.getEmail());
-            return false;
+    private ResponseEntity<MfaVerifyResponse> handleError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof com.hybridaccess.auth_backend.exception.ServiceUnavailableException unavailable) {
+            return ResponseEntity.status(503)
+                    .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(unavailable.getRetryAfterSeconds()))
+                    .body(createErrorResponse("Face verification temporarily unavailable. Please retry later."));
         }
-
-        boolean valid = totpService.validateCodeWithTolerance(user.getOtpSecret(), otpCode);
-        if (valid) {
-            log.info("✅ OTP verified for user {}", user.getEmail());
-        } else {
-            log.warn("❌ Invalid OTP code for user {}", user.getEmail());
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("⚠️ MFA completion pool saturated, verification rejected");
+            return ResponseEntity.status(503)
+                    .header(org.springframework.http.HttpHeaders.RETRY_AFTER, "1")
+                    .body(createErrorResponse("MFA verification temporarily unavailable. Please retry later."));
+        }
+        if (cause instanceof com.hybridaccess.auth_backend.exception.UnauthorizedException) {
+            log.warn("❌ MFA session rejected: {}", cause.getMessage());
+            return ResponseEntity.status(401).body(createErrorResponse("MFA session expired. Please login again."));
         }
-        return valid;
+        log.error("❌ MFA verification error", cause);
+        return ResponseEntity.status(500).body(createErrorResponse("MFA verification failed: " + cause.getMessage()));
     }
 
     /**
-     * Verifies FACE factor
-     * TODO: Implement actual face recognition using face-service
+     * Decodes a JSON imageBase64 (data URL prefix accepted) to the image bytes, in a single copy
+     *
+     * @return The bytes, or null if no image was sent
+     * @throws IllegalArgumentException if the value is not valid Base64
      */
-    private boolean verifyFaceFactor(MfaSession session, String imageBase64) {
-        // TODO: Call face-service to verify against stored face embedding
-        // For now, placeholder logic
-        
-        log.warn("⚠️ FACE verification not yet implemented - accepting as valid for testing");
-        return true; // Placeholder: always accept for now
+    private byte[] decodeImage(String imageBase64) {
+        if (imageBase64 == null || imageBase64.isBlank()) {
+            return null;
+        }
+        int start = imageBase64.startsWith("data:") ? imageBase64.indexOf(',') + 1 : 0;
+        return Base64.getMimeDecoder().decode(start == 0 ? imageBase64 : imageBase64.substring(start));
+    }
+
+    private ResponseEntity<MfaVerifyResponse> imageTooLarge() {
+        log.warn("❌ Face image rejected: larger than {} bytes", maxImageBytes);
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(createErrorResponse("Image too large (max " + maxImageBytes + " bytes)"));
     }
 
     /**
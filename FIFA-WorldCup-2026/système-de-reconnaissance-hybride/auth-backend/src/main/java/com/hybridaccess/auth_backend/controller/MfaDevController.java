@@ -4,6 +4,8 @@ import com.hybridaccess.auth_backend.entity.AccessLevel;
 import com.hybridaccess.auth_backend.entity.User;
 import com.hybridaccess.auth_backend.repository.AccessLevelRepository;
 import com.hybridaccess.auth_backend.repository.UserRepository;
+import com.hybridaccess.auth_backend.security.TokenVersionRegistry;
+import com.hybridaccess.auth_backend.service.TotpService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +27,8 @@ public class MfaDevController {
 
     private final UserRepository userRepository;
     private final AccessLevelRepository accessLevelRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TotpService totpService;
 
     /**
      * Désactive le MFA pour un utilisateur (pour tests)
@@ -37,9 +41,7 @@ public class MfaDevController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found: " + email));
 
-        user.setOtpEnabled(false);
-        user.setOtpSecret(null);
-        userRepository.save(user);
+        totpService.disableOtp(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -64,11 +66,7 @@ public class MfaDevController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found: " + email));
 
-        user.setOtpEnabled(true);
-        if (otpSecret != null && !otpSecret.isEmpty()) {
-            user.setOtpSecret(otpSecret);
-        }
-        userRepository.save(user);
+        totpService.enableOtp(user, otpSecret);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -119,6 +117,7 @@ public class MfaDevController {
 
         String oldLevelName = user.getAccessLevel().getName();
         user.setAccessLevel(newLevel);
+        tokenVersionRegistry.bump(user);
         userRepository.save(user);
 
         Map<String, Object> response = new HashMap<>();
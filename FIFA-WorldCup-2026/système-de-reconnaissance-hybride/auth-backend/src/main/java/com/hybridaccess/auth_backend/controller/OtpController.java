@@ -87,9 +87,7 @@ public class OtpController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        user.setOtpSecret(request.getSecret());
-        user.setOtpEnabled(true);
-        userRepository.save(user);
+        totpService.enableOtp(user, request.getSecret());
 
         log.info("OTP successfully enabled for user: {}", email);
 
@@ -137,9 +135,7 @@ public class OtpController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found: " + email));
 
-            user.setOtpEnabled(false);
-            user.setOtpSecret(null);
-            userRepository.save(user);
+            totpService.disableOtp(user);
 
             log.info("✅ OTP disabled successfully for user: {}", email);
 
@@ -70,9 +70,7 @@ public class PublicOtpController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found: " + email));
 
-        user.setOtpSecret(secret);
-        user.setOtpEnabled(true);
-        userRepository.save(user);
+        totpService.enableOtp(user, secret);
 
         log.info("✅ OTP enabled for user: {} (DEMO MODE - format check only)", email);
 
@@ -1,9 +1,11 @@
 package com.hybridaccess.auth_backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -17,12 +19,24 @@ public class MfaVerifyRequest {
     /**
      * MFA session ID (from login response or resource access attempt)
      */
+    @JsonAlias("sessionId")
     private UUID mfaSessionId;
+
+    /**
+     * Encrypted MFA session token (mfa.session-mode=token), replaced after each verified factor
+     */
+    private String mfaSessionToken;
     
     /**
      * Type of factor being verified: "OTP" or "FACE"
      */
     private String factorType;
+
+    /**
+     * Several factors verified in one request (e.g., ["OTP", "FACE"]), checked concurrently
+     * Takes precedence over factorType when present
+     */
+    private List<String> factorTypes;
     
     /**
      * For OTP: the 6-digit code
@@ -29,11 +29,22 @@ public class MfaVerifyResponse {
      */
     private Set<String> requiredFactors;
     
+    /**
+     * New encrypted MFA session token to send with the next factor
+     * (only in mfa.session-mode=token, when mfaCompleted = false)
+     */
+    private String mfaSessionToken;
+
     /**
      * Final JWT token (only present when mfaCompleted = true)
      */
     private String token;
     
+    /**
+     * Refresh token (only present when mfaCompleted = true)
+     */
+    private String refreshToken;
+    
     /**
      * User details (only present when mfaCompleted = true)
      */
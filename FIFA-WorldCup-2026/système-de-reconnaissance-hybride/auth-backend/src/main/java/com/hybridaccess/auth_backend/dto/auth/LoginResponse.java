@@ -17,7 +17,9 @@ import java.util.List;
 @AllArgsConstructor
 public class LoginResponse {
 
-    private String token; // JWT si authentification complète
+    private String token; // JWT si authentification complète (courte durée)
+
+    private String refreshToken; // Refresh token pour obtenir un nouveau JWT sans re-login
 
     private Boolean mfaRequired; // true si des facteurs supplémentaires sont requis
 
@@ -25,6 +27,8 @@ public class LoginResponse {
 
     private String sessionId; // ID de session pour continuer le processus MFA
 
+    private String mfaSessionToken; // État MFA chiffré (mfa.session-mode=token), à renvoyer avec chaque facteur
+
     private Integer riskScore; // Score de risque calculé
 
     private String message; // Message pour l'utilisateur
@@ -0,0 +1,30 @@
+package com.hybridaccess.auth_backend.dto.face;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for batch face verification (one result per image, in request order).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FaceVerifyBatchResponse {
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private boolean match;
+        private Double confidence;
+        private Boolean autoEnrolled;
+        private String message;
+        private String error;  // Set when this image could not be processed
+    }
+}
@@ -0,0 +1,58 @@
+package com.hybridaccess.auth_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant une clé de signature JWT asymétrique (ES256 / EdDSA), partagée par toutes les instances.
+ * 
+ * La colonne slot (unique) porte le rôle de la clé dans le trousseau : au plus une clé CURRENT
+ * et une clé NEXT ; null pour une clé retirée, conservée jusqu'à expiration des tokens qu'elle a signés.
+ * La clé privée est stockée chiffrée (AES-256-GCM), jamais en clair.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtSigningKey {
+
+    @Id
+    @Column(length = 64)
+    private String kid; // Empreinte RFC 7638 de la clé publique
+
+    @Column(nullable = false, length = 16)
+    private String algorithm; // ES256 | EdDSA
+
+    @Enumerated(EnumType.STRING)
+    @Column(unique = true, length = 16)
+    private Slot slot;
+
+    @Column(name = "public_key", nullable = false, length = 512)
+    private String publicKey; // X.509 en base64
+
+    @Column(name = "private_key", nullable = false, length = 512)
+    private String privateKey; // PKCS#8 chiffré, base64( IV || chiffré || tag )
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "activated_at")
+    private LocalDateTime activatedAt; // Début de la signature des nouveaux tokens
+
+    @Column(name = "retired_at")
+    private LocalDateTime retiredAt;
+
+    /**
+     * Rôle d'une clé active dans le trousseau.
+     */
+    public enum Slot {
+        CURRENT, // Signe les nouveaux tokens
+        NEXT     // Publiée dans le JWKS avant d'être utilisée
+    }
+}
@@ -0,0 +1,73 @@
+package com.hybridaccess.auth_backend.entity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Facteurs MFA, encodés en bits pour la persistance compacte des sessions.
+ *
+ * ⚠️ Les valeurs de bit sont persistées (colonnes *_factors_mask) : ne jamais les réattribuer,
+ * ajouter les nouveaux facteurs avec le bit libre suivant.
+ */
+public enum MfaFactor {
+
+    FACE(1),
+    OTP(1 << 1);
+
+    private final int bit;
+
+    MfaFactor(int bit) {
+        this.bit = bit;
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    /**
+     * Résout un facteur par son nom ("FACE", "otp"...).
+     */
+    public static Optional<MfaFactor> fromName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Encode un ensemble de noms de facteurs (les noms inconnus sont ignorés).
+     */
+    public static int maskOf(Collection<String> names) {
+        int mask = 0;
+        if (names != null) {
+            for (String name : names) {
+                mask |= fromName(name).map(MfaFactor::bit).orElse(0);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Décode un masque en noms de facteurs (ordre de déclaration).
+     */
+    public static Set<String> namesOf(int mask) {
+        if (mask == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (MfaFactor factor : values()) {
+            if ((mask & factor.bit) != 0) {
+                names.add(factor.name());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+}
@@ -6,7 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
 
@@ -18,7 +18,9 @@ import java.util.UUID;
  * to verifiedFactors. Once all required factors are verified, a final JWT is issued.
  */
 @Entity
-@Table(name = "mfa_sessions")
+@Table(name = "mfa_sessions", indexes = {
+        @Index(name = "idx_mfa_sessions_expires_at", columnList = "expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,22 +47,18 @@ public class MfaSession {
     private Integer requiredLevel;
 
     /**
-     * Factors required for this session (e.g., ["FACE", "OTP"])
+     * Factors required for this session, as a {@link MfaFactor} bitmask
      * Determined by the resource level being accessed
      */
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "mfa_session_required_factors", joinColumns = @JoinColumn(name = "session_id"))
-    @Column(name = "factor")
-    private Set<String> requiredFactors = new HashSet<>();
+    @Column(name = "required_factors_mask", nullable = false)
+    private int requiredFactorsMask;
 
     /**
-     * Factors already verified in this session
-     * When this equals requiredFactors, MFA is complete and JWT can be issued
+     * Factors already verified in this session, as a {@link MfaFactor} bitmask
+     * When it covers requiredFactorsMask, MFA is complete and JWT can be issued
      */
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "mfa_session_verified_factors", joinColumns = @JoinColumn(name = "session_id"))
-    @Column(name = "factor")
-    private Set<String> verifiedFactors = new HashSet<>();
+    @Column(name = "verified_factors_mask", nullable = false)
+    private int verifiedFactorsMask;
 
     /**
      * Expiration timestamp - sessions expire after 10 minutes
@@ -75,10 +73,28 @@ public class MfaSession {
     private LocalDateTime createdAt;
 
     /**
-     * Checks if MFA is complete (all required factors verified)
+     * Checks if MFA is complete (all required factor bits verified)
      */
     public boolean isComplete() {
-        return !requiredFactors.isEmpty() && verifiedFactors.containsAll(requiredFactors);
+        return requiredFactorsMask != 0 && (verifiedFactorsMask & requiredFactorsMask) == requiredFactorsMask;
+    }
+
+    /**
+     * Required factors as names (e.g., ["FACE", "OTP"]), derived from the bitmask
+     */
+    public Set<String> getRequiredFactors() {
+        return MfaFactor.namesOf(requiredFactorsMask);
+    }
+
+    public void setRequiredFactors(Set<String> requiredFactors) {
+        this.requiredFactorsMask = MfaFactor.maskOf(requiredFactors);
+    }
+
+    /**
+     * Verified factors as names, derived from the bitmask
+     */
+    public Set<String> getVerifiedFactors() {
+        return MfaFactor.namesOf(verifiedFactorsMask);
     }
 
     /**
@@ -89,12 +105,26 @@ public class MfaSession {
     }
 
     /**
-     * Marks a factor as verified
+     * Marks a factor as verified (ignored if not required)
      */
     public void addVerifiedFactor(String factor) {
-        if (requiredFactors.contains(factor)) {
-            verifiedFactors.add(factor);
-        }
+        int bit = MfaFactor.fromName(factor).map(MfaFactor::bit).orElse(0);
+        verifiedFactorsMask |= bit & requiredFactorsMask;
+    }
+
+    /**
+     * Marks several factors as verified in one step (ignored if not required)
+     */
+    public void addVerifiedFactors(Collection<String> factors) {
+        verifiedFactorsMask |= MfaFactor.maskOf(factors) & requiredFactorsMask;
+    }
+
+    /**
+     * Copie indépendante, utilisée par le stockage en mémoire.
+     */
+    public MfaSession copy() {
+        return new MfaSession(sessionId, userId, email, requiredLevel,
+                requiredFactorsMask, verifiedFactorsMask, expiresAt, createdAt);
     }
 
     @PrePersist
@@ -0,0 +1,65 @@
+package com.hybridaccess.auth_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Entité représentant un refresh token (stocké uniquement sous forme de hash SHA-256).
+ * 
+ * Rotation : chaque utilisation marque le token comme consommé et en émet un nouveau
+ * dans la même famille. Réutiliser un token consommé révoque toute la famille.
+ * Les facteurs MFA vérifiés à l'ouverture de la session sont repris par toute la famille.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash; // SHA-256 en base64url, jamais le token brut
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId; // Identifiant commun à toute la chaîne de rotation
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "used_at")
+    private LocalDateTime usedAt; // Renseigné quand le token a été échangé (rotation)
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt; // Renseigné en cas de logout ou de réutilisation détectée
+
+    @Column(name = "mfa_factors_mask", nullable = false)
+    @Builder.Default
+    private int mfaFactorsMask = 0; // Masque MfaFactor des facteurs vérifiés, 0 = mot de passe seul
+
+    /**
+     * @return Les facteurs MFA vérifiés pour cette famille (vide après un login par mot de passe seul)
+     */
+    public Set<String> getMfaFactors() {
+        return MfaFactor.namesOf(mfaFactorsMask);
+    }
+}
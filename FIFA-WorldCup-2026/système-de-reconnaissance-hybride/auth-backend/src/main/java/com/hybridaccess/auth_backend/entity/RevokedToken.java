@@ -0,0 +1,39 @@
+package com.hybridaccess.auth_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant un JWT révoqué avant son expiration (identifié par son claim "jti").
+ * 
+ * La date de révocation sert de curseur pour la synchronisation incrémentale
+ * de la liste de révocation en mémoire.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // Expiration du JWT : au-delà, l'entrée est inutile
+
+    @Column(name = "revoked_at", nullable = false, updatable = false)
+    @Builder.Default
+    private LocalDateTime revokedAt = LocalDateTime.now();
+}
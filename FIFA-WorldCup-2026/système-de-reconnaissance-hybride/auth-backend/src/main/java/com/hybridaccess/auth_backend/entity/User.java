@@ -62,6 +62,15 @@ public class User {
     @Builder.Default
     private Boolean otpEnabled = false;
 
+    /**
+     * Version des tokens émis (claim "ver").
+     * Incrémentée quand l'utilisateur est désactivé ou change de niveau,
+     * ce qui invalide les JWT déjà émis en mode stateless.
+     */
+    @Column(name = "token_version")
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
     /**
      * Callback exécuté avant chaque mise à jour.
      */
@@ -0,0 +1,11 @@
+package com.hybridaccess.auth_backend.exception;
+
+/**
+ * Exception lancée quand le corps d'une requête dépasse la taille autorisée : réponse 413.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
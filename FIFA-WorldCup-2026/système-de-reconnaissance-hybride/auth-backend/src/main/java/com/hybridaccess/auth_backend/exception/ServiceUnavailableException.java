@@ -0,0 +1,19 @@
+package com.hybridaccess.auth_backend.exception;
+
+/**
+ * Exception lancée quand un service dépendant est indisponible ou saturé
+ * (circuit ouvert, bulkhead plein) : réponse 503 + Retry-After.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
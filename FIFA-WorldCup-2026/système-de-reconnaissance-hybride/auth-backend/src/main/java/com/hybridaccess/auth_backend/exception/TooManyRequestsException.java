@@ -0,0 +1,18 @@
+package com.hybridaccess.auth_backend.exception;
+
+/**
+ * Exception lancée quand une capacité bornée est saturée (réponse 429 + Retry-After).
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hybridaccess.auth_backend.repository;
+
+import com.hybridaccess.auth_backend.entity.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository pour l'entité JwtSigningKey.
+ * 
+ * Les changements de rôle sont conditionnels (WHERE sur le slot attendu) : quand plusieurs
+ * instances tentent la même rotation, une seule la réalise.
+ */
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    /**
+     * Retire une clé si elle occupe encore le slot attendu.
+     * 
+     * @return 1 si la clé a été retirée par cet appel, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JwtSigningKey k SET k.slot = NULL, k.retiredAt = :now WHERE k.kid = :kid AND k.slot = :slot")
+    int retire(String kid, JwtSigningKey.Slot slot, LocalDateTime now);
+
+    /**
+     * Fait passer la clé NEXT en CURRENT.
+     * 
+     * @return 1 si la clé a été activée par cet appel, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JwtSigningKey k SET k.slot = :current, k.activatedAt = :now WHERE k.kid = :kid AND k.slot = :next")
+    int promote(String kid, JwtSigningKey.Slot next, JwtSigningKey.Slot current, LocalDateTime now);
+
+    /**
+     * Retire toutes les clés actives (trousseau incomplet ou changement de jwt.signing.algorithm).
+     * 
+     * @return Nombre de clés retirées
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JwtSigningKey k SET k.slot = NULL, k.retiredAt = :now WHERE k.slot IS NOT NULL")
+    int retireActive(LocalDateTime now);
+
+    /**
+     * Supprime les clés retirées dont tous les tokens ont expiré.
+     * 
+     * @return Nombre de lignes supprimées
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM JwtSigningKey k WHERE k.slot IS NULL AND k.retiredAt < :cutoff")
+    int deleteRetiredBefore(LocalDateTime cutoff);
+}
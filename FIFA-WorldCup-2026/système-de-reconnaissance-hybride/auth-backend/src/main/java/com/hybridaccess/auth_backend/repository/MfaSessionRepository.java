@@ -2,7 +2,10 @@ package com.hybridaccess.auth_backend.repository;
 
 import com.hybridaccess.auth_backend.entity.MfaSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,4 +32,31 @@ public interface MfaSessionRepository extends JpaRepository<MfaSession, UUID> {
      * Delete all sessions for a user
      */
     void deleteByUserId(Long userId);
+
+    /**
+     * Adds verified factor bits in place (only bits that are required), on a non-expired session.
+     * One UPDATE: concurrent verifications of different factors cannot overwrite each other.
+     * The persistence context is cleared so that the re-read returns the updated row.
+     *
+     * @param bits Factor mask ({@link com.hybridaccess.auth_backend.entity.MfaFactor})
+     * @return 1 if the session was updated, 0 if it does not exist or has expired
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE MfaSession s SET s.verifiedFactorsMask = bitor(s.verifiedFactorsMask, bitand(s.requiredFactorsMask, :bits)) "
+            + "WHERE s.sessionId = :sessionId AND s.expiresAt > :now")
+    int addVerifiedFactors(UUID sessionId, int bits, LocalDateTime now);
+
+    /**
+     * Deletes at most {@code batchSize} expired sessions in one set-based statement
+     * (index on expires_at, short transaction per batch)
+     *
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM mfa_sessions WHERE session_id IN ("
+            + "SELECT session_id FROM mfa_sessions WHERE expires_at < :now LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
 }
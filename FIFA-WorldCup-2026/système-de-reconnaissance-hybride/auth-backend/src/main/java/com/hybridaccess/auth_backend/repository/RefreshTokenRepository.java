@@ -0,0 +1,57 @@
+package com.hybridaccess.auth_backend.repository;
+
+import com.hybridaccess.auth_backend.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository pour l'entité RefreshToken.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Trouve un refresh token par son hash.
+     * 
+     * @param tokenHash Hash SHA-256 (base64url) du token brut
+     * @return Optional contenant le token si trouvé
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marque un token comme consommé, uniquement s'il ne l'était pas déjà.
+     * Garantit qu'un même token ne peut être échangé qu'une fois, même en concurrence.
+     * 
+     * @return 1 si le token a été consommé par cet appel, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.usedAt = :now WHERE r.id = :id AND r.usedAt IS NULL AND r.revokedAt IS NULL")
+    int markUsed(Long id, LocalDateTime now);
+
+    /**
+     * Révoque tous les tokens actifs d'une famille.
+     * 
+     * @return Nombre de tokens révoqués
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(String familyId, LocalDateTime now);
+
+    /**
+     * Supprime les tokens expirés.
+     * 
+     * @return Nombre de lignes supprimées
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,42 @@
+package com.hybridaccess.auth_backend.repository;
+
+import com.hybridaccess.auth_backend.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository pour l'entité RevokedToken.
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * Révocations non expirées (chargement complet au démarrage et après purge).
+     */
+    List<RevokedToken> findByExpiresAtAfterOrderByIdAsc(LocalDateTime now);
+
+    /**
+     * Révocations créées depuis une date (synchronisation incrémentale, fenêtre de recouvrement incluse).
+     * 
+     * @param since Date limite (incluse)
+     */
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(LocalDateTime since);
+
+    boolean existsByJti(String jti);
+
+    /**
+     * Supprime les révocations dont le JWT a expiré.
+     * 
+     * @return Nombre de lignes supprimées
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
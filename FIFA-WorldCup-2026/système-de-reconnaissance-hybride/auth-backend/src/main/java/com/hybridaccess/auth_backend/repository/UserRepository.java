@@ -1,9 +1,12 @@
 package com.hybridaccess.auth_backend.repository;
 
 import com.hybridaccess.auth_backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,10 +22,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
      * Trouve un utilisateur par email.
+     * Le niveau d'accès est chargé dans la même requête (jointure) plutôt que par un second SELECT.
      * 
      * @param email L'email de l'utilisateur
      * @return Optional contenant l'utilisateur si trouvé
      */
+    @EntityGraph(attributePaths = "accessLevel")
     Optional<User> findByEmail(String email);
 
     /**
@@ -66,4 +71,68 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u WHERE u.lastLogin < :date OR u.lastLogin IS NULL")
     List<User> findInactiveUsers(LocalDateTime date);
+
+    /**
+     * Récupère les versions de token non nulles (pour le registre en mémoire).
+     * 
+     * @return Paires [id, tokenVersion] des utilisateurs dont les tokens ont été invalidés
+     */
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findTokenVersions();
+
+    /**
+     * Récupère les versions de token non nulles des utilisateurs modifiés depuis une date
+     * (synchronisation incrémentale du registre entre instances).
+     * 
+     * @param since Date limite (incluse)
+     * @return Paires [id, tokenVersion]
+     */
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0 AND u.updatedAt >= :since")
+    List<Object[]> findTokenVersionsUpdatedSince(LocalDateTime since);
+
+    /**
+     * Récupère les IDs de tous les utilisateurs (détection des suppressions faites par une autre instance).
+     *
+     * @return IDs des utilisateurs existants
+     */
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    /**
+     * Enregistre un login réussi en une seule requête (date de connexion + remise à zéro des échecs).
+     * Le contexte de persistance est vidé : l'entité déjà chargée devient détachée et
+     * ne déclenche pas un second UPDATE complet par dirty checking.
+     * 
+     * @param id ID de l'utilisateur
+     * @param now Date du login
+     * @return Nombre de lignes mises à jour
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE User u SET u.lastLogin = :now, u.failedLoginAttempts = 0, u.updatedAt = :now WHERE u.id = :id")
+    int recordSuccessfulLogin(Long id, LocalDateTime now);
+
+    /**
+     * Incrémente atomiquement le compteur d'échecs (pas de lecture-modification-écriture en Java).
+     * 
+     * @param email L'email de l'utilisateur
+     * @param delta Nombre d'échecs à ajouter
+     * @return Nombre de lignes mises à jour (0 si email inconnu)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.failedLoginAttempts = COALESCE(u.failedLoginAttempts, 0) + :delta WHERE u.email = :email")
+    int incrementFailedLoginAttempts(String email, long delta);
+
+    /**
+     * Remplace le hash du mot de passe (ré-encodage transparent au login).
+     * 
+     * @param email L'email de l'utilisateur
+     * @param password Le nouveau hash
+     * @return Nombre de lignes mises à jour
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(String email, String password);
 }
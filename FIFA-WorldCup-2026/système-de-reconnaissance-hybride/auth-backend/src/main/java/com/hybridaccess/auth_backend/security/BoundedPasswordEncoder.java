@@ -0,0 +1,227 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encodeur BCrypt exécuté sur un pool dédié et borné.
+ *
+ * - Pool dimensionné sur le nombre de cœurs : le hachage ne monopolise plus les threads Tomcat
+ *   au-delà de la capacité CPU réelle
+ * - File d'attente bornée : au-delà, rejet immédiat (429 + Retry-After) au lieu d'une attente
+ *   qui bloquerait aussi les endpoints légers (/health, lectures)
+ * - Compteurs : temps d'attente en file et temps de hachage
+ * - Coût BCrypt calibré au démarrage pour viser une latence de vérification cible sur la machine
+ *   courante ; les hashes d'un coût plus faible sont signalés par {@link #upgradeEncoding(String)}
+ *
+ * Les hashes restent au format BCrypt brut ($2a$...), sans préfixe d'identifiant : lisibles par
+ * BCryptPasswordEncoder comme par les scripts de seed (manual_seed.sql, seed_db.py, verify_password.py).
+ */
+@Component
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Préfixe écrit par une version précédente (DelegatingPasswordEncoder) : encore lu,
+     * et réécrit au format brut au prochain login
+     */
+    private static final String LEGACY_PREFIX = "{bcrypt}";
+    private static final int MAX_STRENGTH = 16;
+
+    private BCryptPasswordEncoder delegate;
+    private int strength;
+
+    @Value("${security.password-hashing.strength:0}")
+    private int configuredStrength;
+
+    @Value("${security.password-hashing.min-strength:10}")
+    private int minStrength;
+
+    @Value("${security.password-hashing.target-verify-ms:250}")
+    private long targetVerifyMs;
+
+    @Value("${security.password-hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${security.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.password-hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    void init() {
+        strength = configuredStrength > 0 ? configuredStrength : calibrateStrength();
+        delegate = new BCryptPasswordEncoder(strength);
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing pool started: {} thread(s), queue capacity {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, withoutLegacyPrefix(encodedPassword)));
+    }
+
+    /**
+     * @return true si le hash a un coût inférieur au coût calibré, ou porte l'ancien préfixe "{bcrypt}"
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword != null && encodedPassword.startsWith(LEGACY_PREFIX)) {
+            return true;
+        }
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static String withoutLegacyPrefix(String encodedPassword) {
+        return encodedPassword != null && encodedPassword.startsWith(LEGACY_PREFIX)
+                ? encodedPassword.substring(LEGACY_PREFIX.length())
+                : encodedPassword;
+    }
+
+    /**
+     * Statistiques du pool de hachage (temps en millisecondes).
+     */
+    public Map<String, Object> getStats() {
+        long count = completed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bcryptStrength", strength);
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", count);
+        stats.put("rejected", rejected.sum());
+        stats.put("avgQueueWaitMs", count > 0 ? toMillis(queueWaitNanos.sum() / count) : 0.0);
+        stats.put("maxQueueWaitMs", toMillis(maxQueueWaitNanos.get()));
+        stats.put("avgHashMs", count > 0 ? toMillis(hashNanos.sum() / count) : 0.0);
+        stats.put("maxHashMs", toMillis(maxHashNanos.get()));
+        return stats;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(queueWaitNanos, maxQueueWaitNanos, startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    record(hashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue full ({} pending), rejecting request", queueCapacity);
+            throw new TooManyRequestsException(
+                    "Serveur d'authentification saturé, réessayez dans quelques instants", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Choisit le coût BCrypt le plus élevé dont la vérification reste sous la latence cible.
+     * Chaque +1 double le temps : on s'arrête dès que le coût suivant dépasserait la cible.
+     */
+    private int calibrateStrength() {
+        int chosen = minStrength;
+        for (int candidate = minStrength; candidate <= MAX_STRENGTH; candidate++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(candidate);
+            String hash = encoder.encode("calibration");
+
+            long bestNanos = Long.MAX_VALUE;
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                encoder.matches("calibration", hash);
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+
+            long verifyMs = TimeUnit.NANOSECONDS.toMillis(bestNanos);
+            log.debug("BCrypt calibration: strength {} verifies in {} ms", candidate, verifyMs);
+            if (verifyMs > targetVerifyMs && candidate > minStrength) {
+                break;
+            }
+            chosen = candidate;
+            if (verifyMs * 2 > targetVerifyMs) {
+                break;
+            }
+        }
+        log.info("BCrypt strength calibrated to {} (target verify latency {} ms, minimum strength {})",
+                chosen, targetVerifyMs, minStrength);
+        return chosen;
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -4,24 +4,28 @@ import com.hybridaccess.auth_backend.entity.AccessLevel;
 import com.hybridaccess.auth_backend.entity.User;
 import com.hybridaccess.auth_backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Service pour charger les détails de l'utilisateur pour Spring Security.
+ * Implémente aussi le ré-encodage transparent du mot de passe après un login réussi
+ * (appelé par DaoAuthenticationProvider quand le hash stocké est plus faible que le coût calibré).
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+@Slf4j
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -34,11 +38,24 @@ public class CustomUserDetailsService implements UserDetailsService {
         // ✅ Créer authorities hiérarchiques
         List<GrantedAuthority> authorities = buildHierarchicalAuthorities(user.getAccessLevel());
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountLocked(!user.getActive())
+        // ✅ Le principal porte l'entité : le login n'a pas à relire l'utilisateur
+        return new UserPrincipal(user, authorities);
+    }
+
+    /**
+     * Persiste le nouveau hash par un UPDATE ciblé (l'entité chargée n'est pas modifiée,
+     * pour ne pas déclencher un UPDATE complet par dirty checking).
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), newPassword);
+        log.info("Password hash upgraded for user {}", userDetails.getUsername());
+
+        if (userDetails instanceof UserPrincipal principal) {
+            return new UserPrincipal(principal.getUser(), newPassword, principal.getAuthorities());
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
                 .build();
     }
 
@@ -50,21 +67,38 @@ public class CustomUserDetailsService implements UserDetailsService {
      * @return Liste des authorities hiérarchiques
      */
     private List<GrantedAuthority> buildHierarchicalAuthorities(AccessLevel level) {
+        return buildHierarchicalAuthorities(level.getPriorityLevel(), level.getName());
+    }
+
+    private List<GrantedAuthority> buildHierarchicalAuthorities(int userPriority, String levelName) {
         List<GrantedAuthority> authorities = new ArrayList<>();
         
-        int userPriority = level.getPriorityLevel();
-        
         // Ajouter tous les niveaux de 1 jusqu'au niveau de l'utilisateur
         for (int i = 1; i <= userPriority; i++) {
             authorities.add(new SimpleGrantedAuthority("ROLE_LEVEL_" + i));
         }
         
         // Optionnel: Ajouter aussi le rôle nominal (PUBLIC, CONFIDENTIEL, etc.)
-        authorities.add(new SimpleGrantedAuthority("ROLE_" + level.getName()));
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + levelName));
         
         return authorities;
     }
 
+    /**
+     * Reconstruit le principal à partir des claims d'un token déjà vérifié (mode stateless).
+     * Aucun accès à la base : le mot de passe n'est pas disponible et n'est pas nécessaire.
+     *
+     * @param token Les claims vérifiés (userId, priorityLevel, levelName)
+     * @return UserDetails avec les mêmes authorities hiérarchiques que loadUserByUsername
+     */
+    public UserDetails loadUserFromToken(VerifiedToken token) {
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(token.subject())
+                .password("")
+                .authorities(buildHierarchicalAuthorities(token.priorityLevel(), token.levelName()))
+                .build();
+    }
+
     /**
      * Charge un utilisateur par ID (optionnel, pour usage interne).
      */
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +16,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * Filtre JWT pour valider le token sur chaque requête.
@@ -24,8 +26,17 @@ import java.io.IOException;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * Mode stateless (opt-in) : le principal est reconstruit depuis les claims JWT,
+     * sans requête sur la table users. La version de token reste vérifiée en mémoire.
+     */
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,20 +45,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
+            // ✅ Une seule vérification de signature + parsing par token (cache des tokens vérifiés)
+            Optional<VerifiedToken> verified = StringUtils.hasText(jwt)
+                    ? verifiedTokenCache.verify(jwt)
+                    : Optional.empty();
+
+            if (verified.isPresent()) {
+                VerifiedToken token = verified.get();
+                String username = token.subject();
 
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+                UserDetails userDetails = resolveUserDetails(token);
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                log.debug("User {} authenticated via JWT", username);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                    log.debug("User {} authenticated via JWT", username);
+                } else {
+                    log.debug("JWT {} for user {} has been revoked (token version {})", token.jti(), username, token.tokenVersion());
+                }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -56,6 +78,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construit le principal : depuis les claims en mode stateless, sinon depuis la base.
+     *
+     * @return UserDetails, ou null si le token a été invalidé (révoqué ou version obsolète)
+     */
+    private UserDetails resolveUserDetails(VerifiedToken token) {
+        // ✅ Filtre de Bloom en mémoire : pas d'I/O pour le cas courant "non révoqué"
+        if (tokenRevocationList.isRevoked(token.jti())) {
+            return null;
+        }
+        // Utilisateur inconnu au dernier relevé des IDs (créé depuis, ou supprimé) : chargé depuis la base
+        if (statelessPrincipal && token.hasPrincipalClaims() && tokenVersionRegistry.isKnownUser(token.userId())) {
+            if (!tokenVersionRegistry.isCurrent(token.userId(), token.tokenVersion())) {
+                return null;
+            }
+            return customUserDetailsService.loadUserFromToken(token);
+        }
+        return customUserDetailsService.loadUserByUsername(token.subject());
+    }
+
     /**
      * Extrait le token JWT du header Authorization.
      */
@@ -0,0 +1,301 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.JwtSigningKey;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Gestion des clés de signature asymétriques (ES256 / EdDSA) avec rotation.
+ *
+ * Cycle de vie d'une clé :
+ * - NEXT    : publiée dans le JWKS avant d'être utilisée (les clients la mettent en cache à l'avance)
+ * - CURRENT : signe les nouveaux tokens (header "kid")
+ * - RETIRED : ne signe plus, reste publiée jusqu'à expiration du dernier token qu'elle a signé
+ *
+ * Le trousseau est persisté (table jwt_signing_keys, voir JwtSigningKeyStore) et relu à chaque vérification
+ * de rotation : toutes les instances signent avec la même clé et publient le même JWKS.
+ * La rotation est réalisée par une seule instance (changement de slot conditionnel).
+ * En mode HS256 (par défaut), ce composant est inactif.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtKeyManager extends LocatorAdapter<Key> {
+
+    private final JwtSigningKeyStore jwtSigningKeyStore;
+
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.signing.rotation-interval:24h}")
+    private Duration rotationInterval;
+
+    @Value("${jwt.signing.rotation-check-ms:60000}")
+    private long rotationCheckMs;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    private SignatureAlgorithm signatureAlgorithm;
+
+    /**
+     * Trousseau courant, remplacé entièrement à chaque relecture (copy-on-write).
+     */
+    private volatile KeyRing keyRing;
+
+    @PostConstruct
+    void init() {
+        signatureAlgorithm = switch (algorithm.toUpperCase()) {
+            case "HS256" -> null;
+            case "ES256" -> Jwts.SIG.ES256;
+            case "EDDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+
+        if (isAsymmetric()) {
+            reload();
+            log.info("JWT asymmetric signing enabled ({}), current kid={}, rotation every {}",
+                    signatureAlgorithm.getId(), keyRing.current().kid(), rotationInterval);
+        }
+    }
+
+    /**
+     * @return true si les tokens sont signés avec une clé asymétrique (ES256 / EdDSA)
+     */
+    public boolean isAsymmetric() {
+        return signatureAlgorithm != null;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * @return La clé qui signe actuellement les nouveaux tokens
+     */
+    public SigningKey currentKey() {
+        return keyRing.current();
+    }
+
+    /**
+     * Vérification planifiée : relecture du trousseau partagé (rotations faites par les autres instances),
+     * suppression des clés retirées dont tous les tokens ont expiré, puis rotation si la clé CURRENT
+     * a atteint sa durée d'utilisation (NEXT devient CURRENT, CURRENT est retirée).
+     */
+    @Scheduled(fixedDelayString = "${jwt.signing.rotation-check-ms:60000}")
+    public void rotateIfDue() {
+        if (!isAsymmetric()) {
+            return;
+        }
+
+        try {
+            Instant now = Instant.now();
+            // Une instance peut encore signer avec une clé retirée jusqu'à sa prochaine relecture
+            int purged = jwtSigningKeyStore.purgeRetiredBefore(toLocal(now.minusMillis(jwtExpirationMs + rotationCheckMs)));
+            if (purged > 0) {
+                log.info("{} expired JWT signing key(s) removed", purged);
+            }
+            reload();
+
+            KeyRing ring = keyRing;
+            if (ring.current().activatedAt().plus(rotationInterval).isAfter(now)) {
+                return;
+            }
+
+            SigningKey next = generateKey();
+            if (jwtSigningKeyStore.rotate(ring.current().kid(), ring.next().kid(),
+                    toEntity(next, JwtSigningKey.Slot.NEXT, now), toLocal(now))) {
+                log.info("JWT signing key rotated: current kid={}, next kid={}", ring.next().kid(), next.kid());
+            }
+            reload();
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("⚠️ JWT key ring refresh failed, keeping current kid={}: {}", keyRing.current().kid(), e.getMessage());
+        }
+    }
+
+    /**
+     * Résout la clé de vérification à partir du header "kid".
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        SigningKey key = kid != null ? keyRing.byKid().get(kid) : null;
+        if (key == null) {
+            throw new JwtException("Unknown JWT key id: " + kid);
+        }
+        return key.publicKey();
+    }
+
+    /**
+     * Construit le document JWKS (clés publiques CURRENT, NEXT et RETIRED).
+     *
+     * @return JSON {"keys":[...]} ; liste vide en mode HS256
+     */
+    public String buildJwksJson() {
+        if (!isAsymmetric()) {
+            return "{\"keys\":[]}";
+        }
+        return keyRing.all().stream()
+                .map(k -> Jwks.json(k.jwk()))
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    private SigningKey generateKey() {
+        // EdDSA : Ed25519 (courbe la plus largement supportée par les vérificateurs)
+        KeyPair keyPair = signatureAlgorithm == Jwts.SIG.EdDSA
+                ? Jwks.CRV.Ed25519.keyPair().build()
+                : signatureAlgorithm.keyPair().build();
+        PublicJwk<PublicKey> jwk = Jwks.builder()
+                .key(keyPair.getPublic())
+                .algorithm(signatureAlgorithm.getId())
+                .publicKeyUse("sig")
+                .idFromThumbprint()
+                .build();
+        return new SigningKey(jwk.getId(), keyPair.getPrivate(), keyPair.getPublic(), jwk, Instant.now(), null);
+    }
+
+    /**
+     * Relit le trousseau partagé ; le crée s'il n'existe pas encore (ou s'il est inutilisable).
+     */
+    private void reload() {
+        KeyRing ring = toKeyRing(jwtSigningKeyStore.findAll());
+        if (ring == null) {
+            Instant now = Instant.now();
+            try {
+                jwtSigningKeyStore.initialize(toEntity(generateKey(), JwtSigningKey.Slot.CURRENT, now),
+                        toEntity(generateKey(), JwtSigningKey.Slot.NEXT, now), toLocal(now));
+                log.info("✅ JWT signing key ring created ({})", signatureAlgorithm.getId());
+            } catch (DataAccessException e) {
+                log.info("JWT signing key ring created concurrently by another instance, reloading");
+            }
+            ring = toKeyRing(jwtSigningKeyStore.findAll());
+            if (ring == null) {
+                throw new IllegalStateException("JWT signing key ring could not be initialized");
+            }
+        }
+        keyRing = ring;
+    }
+
+    /**
+     * @return Le trousseau, ou null s'il manque la clé CURRENT ou NEXT de l'algorithme configuré
+     */
+    private KeyRing toKeyRing(List<JwtSigningKey> rows) {
+        SigningKey current = null;
+        SigningKey next = null;
+        List<SigningKey> retired = new ArrayList<>();
+        for (JwtSigningKey row : rows) {
+            SigningKey key = fromEntity(row);
+            boolean usable = row.getAlgorithm().equals(signatureAlgorithm.getId());
+            if (usable && row.getSlot() == JwtSigningKey.Slot.CURRENT) {
+                current = key;
+            } else if (usable && row.getSlot() == JwtSigningKey.Slot.NEXT) {
+                next = key;
+            } else {
+                retired.add(key);
+            }
+        }
+        return current != null && next != null ? KeyRing.of(current, next, retired) : null;
+    }
+
+    private JwtSigningKey toEntity(SigningKey key, JwtSigningKey.Slot slot, Instant now) {
+        return JwtSigningKey.builder()
+                .kid(key.kid())
+                .algorithm(signatureAlgorithm.getId())
+                .slot(slot)
+                .publicKey(Base64.getEncoder().encodeToString(key.publicKey().getEncoded()))
+                .privateKey(jwtSigningKeyStore.seal(key.kid(), key.privateKey().getEncoded()))
+                .createdAt(toLocal(now))
+                .activatedAt(slot == JwtSigningKey.Slot.CURRENT ? toLocal(now) : null)
+                .build();
+    }
+
+    private SigningKey fromEntity(JwtSigningKey row) {
+        try {
+            // ES256 : courbe P-256 ; EdDSA : Ed25519 (voir generateKey)
+            KeyFactory keyFactory = KeyFactory.getInstance(row.getAlgorithm().equals(Jwts.SIG.ES256.getId()) ? "EC" : "Ed25519");
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(row.getPublicKey())));
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(jwtSigningKeyStore.unseal(row.getKid(), row.getPrivateKey())));
+            PublicJwk<PublicKey> jwk = Jwks.builder()
+                    .key(publicKey)
+                    .algorithm(row.getAlgorithm())
+                    .publicKeyUse("sig")
+                    .id(row.getKid())
+                    .build();
+            LocalDateTime activatedAt = row.getActivatedAt() != null ? row.getActivatedAt() : row.getCreatedAt();
+            return new SigningKey(row.getKid(), privateKey, publicKey, jwk, toInstant(activatedAt),
+                    row.getRetiredAt() != null ? toInstant(row.getRetiredAt()) : null);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWT signing key " + row.getKid(), e);
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Une paire de clés identifiée par son "kid" (empreinte RFC 7638).
+     */
+    public record SigningKey(
+            String kid,
+            PrivateKey privateKey,
+            PublicKey publicKey,
+            PublicJwk<PublicKey> jwk,
+            Instant activatedAt,
+            Instant retiredAt
+    ) {
+    }
+
+    private record KeyRing(SigningKey current, SigningKey next, List<SigningKey> retired,
+                           Map<String, SigningKey> byKid) {
+
+        static KeyRing of(SigningKey current, SigningKey next, List<SigningKey> retired) {
+            Map<String, SigningKey> index = new LinkedHashMap<>();
+            index.put(current.kid(), current);
+            index.put(next.kid(), next);
+            retired.forEach(k -> index.put(k.kid(), k));
+            return new KeyRing(current, next, List.copyOf(retired), Collections.unmodifiableMap(index));
+        }
+
+        Collection<SigningKey> all() {
+            return byKid.values();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.JwtSigningKey;
+import com.hybridaccess.auth_backend.repository.JwtSigningKeyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Persistance du trousseau de clés de signature JWT (table jwt_signing_keys), partagé par toutes les instances.
+ *
+ * - Les rotations sont des changements de slot conditionnels : une seule instance réalise chaque rotation,
+ *   les autres relisent le trousseau à leur prochaine vérification
+ * - Les clés privées sont chiffrées (AES-256-GCM, kid en données associées) avant stockage
+ *
+ * La clé de chiffrement vient de jwt.signing.key-encryption-key (base64, 32 octets) ou, à défaut,
+ * est dérivée de jwt.secret.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtSigningKeyStore {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    @Value("${jwt.signing.key-encryption-key:}")
+    private String configuredKey;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private SecretKeySpec key;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (configuredKey != null && !configuredKey.isBlank()) {
+            keyBytes = Base64.getDecoder().decode(configuredKey.trim());
+            if (keyBytes.length != 32) {
+                throw new IllegalStateException("jwt.signing.key-encryption-key must be 32 bytes (base64), got " + keyBytes.length);
+            }
+        } else {
+            keyBytes = sha256("jwt-signing-key:" + jwtSecret);
+        }
+        key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    /**
+     * @return Toutes les clés encore publiées (CURRENT, NEXT et retirées)
+     */
+    @Transactional(readOnly = true)
+    public List<JwtSigningKey> findAll() {
+        return jwtSigningKeyRepository.findAll();
+    }
+
+    /**
+     * Crée le trousseau initial, ou le remplace s'il est inutilisable (incomplet, autre algorithme) :
+     * les clés remplacées sont retirées, donc encore publiées jusqu'à expiration de leurs tokens.
+     * Échoue sur la contrainte d'unicité du slot si une autre instance l'a créé en même temps.
+     */
+    @Transactional
+    public void initialize(JwtSigningKey current, JwtSigningKey next, LocalDateTime now) {
+        int retired = jwtSigningKeyRepository.retireActive(now);
+        if (retired > 0) {
+            log.warn("⚠️ {} active JWT signing key(s) replaced and retired", retired);
+        }
+        jwtSigningKeyRepository.saveAllAndFlush(List.of(current, next));
+    }
+
+    /**
+     * Rotation : CURRENT est retirée, NEXT devient CURRENT et une nouvelle clé NEXT est ajoutée.
+     *
+     * @param currentKid Clé CURRENT lue par l'appelant
+     * @param nextKid Clé NEXT lue par l'appelant
+     * @return false si une autre instance a déjà réalisé cette rotation
+     */
+    @Transactional
+    public boolean rotate(String currentKid, String nextKid, JwtSigningKey newNext, LocalDateTime now) {
+        if (jwtSigningKeyRepository.retire(currentKid, JwtSigningKey.Slot.CURRENT, now) == 0) {
+            return false;
+        }
+        if (jwtSigningKeyRepository.promote(nextKid, JwtSigningKey.Slot.NEXT, JwtSigningKey.Slot.CURRENT, now) == 0) {
+            // Trousseau modifié entre la lecture et la rotation : annulation, relu au prochain passage
+            throw new IllegalStateException("JWT signing key " + nextKid + " is no longer NEXT");
+        }
+        jwtSigningKeyRepository.saveAndFlush(newNext);
+        return true;
+    }
+
+    /**
+     * Supprime les clés retirées avant la date limite.
+     *
+     * @return Nombre de clés supprimées
+     */
+    public int purgeRetiredBefore(LocalDateTime cutoff) {
+        return jwtSigningKeyRepository.deleteRetiredBefore(cutoff);
+    }
+
+    /**
+     * Chiffre une clé privée encodée (PKCS#8).
+     *
+     * @return base64( IV || chiffré || tag )
+     */
+    public String seal(String kid, byte[] privateKey) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.US_ASCII));
+            byte[] sealed = cipher.doFinal(privateKey);
+
+            byte[] value = Arrays.copyOf(iv, IV_LENGTH + sealed.length);
+            System.arraycopy(sealed, 0, value, IV_LENGTH, sealed.length);
+            return Base64.getEncoder().encodeToString(value);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JWT signing key encryption failed", e);
+        }
+    }
+
+    /**
+     * Déchiffre une clé privée stockée par {@link #seal(String, byte[])}.
+     *
+     * @return La clé privée encodée (PKCS#8)
+     */
+    public byte[] unseal(String kid, String value) {
+        try {
+            byte[] raw = Base64.getDecoder().decode(value);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, raw, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.US_ASCII));
+            return cipher.doFinal(raw, IV_LENGTH, raw.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JWT signing key " + kid + " cannot be decrypted (key-encryption-key mismatch?)", e);
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,26 +1,34 @@
 package com.hybridaccess.auth_backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Provider pour générer et valider les tokens JWT.
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JwtTokenProvider {
 
+    private final JwtKeyManager jwtKeyManager;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -28,13 +36,19 @@ public class JwtTokenProvider {
     private long jwtExpirationMs;
 
     /**
-     * Génère un token JWT à partir de l'authentification.
+     * Clé HMAC et parser construits une seule fois au démarrage
+     * (évite Keys.hmacShaKeyFor + Jwts.parser() à chaque requête).
+     * En mode asymétrique, le parser résout la clé publique via le header "kid".
      */
-    public String generateToken(Authentication authentication, com.hybridaccess.auth_backend.repository.UserRepository userRepository) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        com.hybridaccess.auth_backend.entity.User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return generateTokenFromUsername(userDetails.getUsername(), user);
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = jwtKeyManager.isAsymmetric()
+                ? Jwts.parser().keyLocator(jwtKeyManager).build()
+                : Jwts.parser().verifyWith(signingKey).build();
     }
 
     /**
@@ -45,17 +59,15 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setSubject(username)
                 .claim("priorityLevel", user.getAccessLevel().getPriorityLevel())  // ✅ Claim niveau
                 .claim("levelName", user.getAccessLevel().getName())                // ✅ Claim nom
                 .claim("userId", user.getId())                                       // ✅ Claim ID user
+                .claim("ver", tokenVersionOf(user))                                  // ✅ Version (révocation)
+                .id(UUID.randomUUID().toString())                                    // ✅ jti (liste de révocation)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(expiryDate));
     }
 
     /**
@@ -70,52 +82,50 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setSubject(user.getEmail())
                 .claim("userId", user.getId())
                 .claim("priorityLevel", user.getAccessLevel().getPriorityLevel())
                 .claim("levelName", user.getAccessLevel().getName())
                 .claim("mfaFactors", verifiedFactors)                              // ✅ MFA factors verified
                 .claim("mfaCompleted", true)                                       // ✅ MFA completion flag
+                .claim("ver", tokenVersionOf(user))
+                .id(UUID.randomUUID().toString())
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(expiryDate));
     }
 
     /**
-     * Extrait le username (email) du token JWT.
+     * Signe le token : clé courante + header "kid" en mode asymétrique, sinon HS256.
      */
-    public String getUsernameFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private String sign(JwtBuilder builder) {
+        if (jwtKeyManager.isAsymmetric()) {
+            JwtKeyManager.SigningKey key = jwtKeyManager.currentKey();
+            return builder.header().keyId(key.kid()).and()
+                    .signWith(key.privateKey(), jwtKeyManager.getSignatureAlgorithm())
+                    .compact();
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS256).compact();
+    }
 
-        return claims.getSubject();
+    private static int tokenVersionOf(com.hybridaccess.auth_backend.entity.User user) {
+        return user.getTokenVersion() != null ? user.getTokenVersion() : 0;
     }
 
     /**
-     * Valide le token JWT.
+     * Vérifie la signature et parse le payload en une seule passe.
+     * ✅ Utilisé par JwtAuthenticationFilter à chaque requête authentifiée.
+     *
+     * @param token Le token JWT brut (sans le préfixe "Bearer ")
+     * @return Les claims vérifiés, ou Optional.empty() si le token est invalide ou expiré
      */
-    public boolean validateToken(String token) {
+    public Optional<VerifiedToken> verifyToken(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            
-            return true;
-        } catch (Exception e) {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            return Optional.of(VerifiedToken.fromClaims(claims));
+        } catch (JwtException | IllegalArgumentException e) {
             log.error("JWT validation error: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 }
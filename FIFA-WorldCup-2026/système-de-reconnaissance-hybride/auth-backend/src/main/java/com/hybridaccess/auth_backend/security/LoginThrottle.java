@@ -0,0 +1,232 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Limitation des tentatives de login par email et par IP source, appliquée avant toute vérification BCrypt.
+ *
+ * - Token bucket sans verrou : chaque clé est un seul AtomicLong (algorithme GCRA,
+ *   "theoretical arrival time"), mis à jour par CAS
+ * - Mémoire bornée : au-delà de max-keys, les nouvelles clés partagent un bucket de débordement
+ *   (fail-closed, compté dans "overflowed") ; un bucket redevenu plein est supprimé par le balayage
+ *   périodique sans perte d'information, ce qui libère de la place
+ * - IP source : X-Forwarded-For n'est lu que si la connexion vient d'un proxy de confiance
+ *   (trusted-proxies), sinon un client pourrait changer d'IP à chaque tentative
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    @Value("${security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.login-throttle.email.burst:5}")
+    private int emailBurst;
+
+    @Value("${security.login-throttle.email.per-minute:5}")
+    private int emailPerMinute;
+
+    @Value("${security.login-throttle.ip.burst:20}")
+    private int ipBurst;
+
+    @Value("${security.login-throttle.ip.per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${security.login-throttle.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${security.login-throttle.trusted-proxies:}")
+    private List<String> trustedProxies;
+
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9A-Fa-f:.]+");
+
+    private Limiter byEmail;
+    private Limiter byIp;
+    private List<IpAddressMatcher> proxyMatchers;
+
+    @PostConstruct
+    void init() {
+        byEmail = new Limiter(emailBurst, emailPerMinute);
+        byIp = new Limiter(ipBurst, ipPerMinute);
+        proxyMatchers = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        if (!proxyMatchers.isEmpty()) {
+            log.info("Login throttle: X-Forwarded-For trusted from {}", trustedProxies);
+        }
+    }
+
+    /**
+     * Adresse IP du client pour la limitation.
+     *
+     * Sans proxy de confiance, c'est l'adresse de la connexion. Derrière un proxy de confiance,
+     * X-Forwarded-For est parcouru de droite à gauche : la première adresse qui n'est pas un proxy
+     * de confiance est celle du client (les entrées plus à gauche sont fournies par le client).
+     */
+    public String resolveClientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (remoteAddr == null || !isTrustedProxy(remoteAddr)) {
+            return remoteAddr != null ? remoteAddr : "UNKNOWN";
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            client = hop;
+            if (!isTrustedProxy(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Consomme un jeton pour l'IP puis pour l'email.
+     *
+     * @param email Email saisi (normalisé en minuscules)
+     * @param clientIp Adresse IP du client
+     * @throws TooManyRequestsException si l'une des deux limites est atteinte
+     */
+    public void check(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long waitNanos = byIp.tryAcquire(clientIp, now);
+        if (waitNanos == 0 && email != null) {
+            waitNanos = byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT), now);
+        }
+
+        if (waitNanos > 0) {
+            log.warn("Login throttled for email {} from IP {}", email, clientIp);
+            throw new TooManyRequestsException(
+                    "Trop de tentatives de connexion, réessayez plus tard",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+    }
+
+    /**
+     * Supprime les buckets redevenus pleins (clés inactives).
+     */
+    @Scheduled(fixedDelayString = "${security.login-throttle.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = byEmail.evictIdle(now) + byIp.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("Login throttle: evicted {} idle key(s)", evicted);
+        }
+    }
+
+    /**
+     * Statistiques de limitation (rejets, clés suivies, tentatives passées par le bucket de débordement).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("email", byEmail.stats());
+        stats.put("ip", byIp.stats());
+        return stats;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (proxyMatchers.isEmpty() || !IP_LITERAL.matcher(address).matches()) {
+            return false;
+        }
+        for (IpAddressMatcher matcher : proxyMatchers) {
+            if (matcher.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ensemble de buckets GCRA pour une dimension (email ou IP).
+     */
+    private final class Limiter {
+
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder overflowed = new LongAdder();
+
+        Limiter(int burst, int perMinute) {
+            this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        }
+
+        /**
+         * @return 0 si autorisé, sinon le délai d'attente en nanosecondes
+         */
+        long tryAcquire(String key, long now) {
+            AtomicLong tat = buckets.get(key);
+            if (tat == null) {
+                if (buckets.size() >= maxKeys) {
+                    // Table pleine : les nouvelles clés partagent un seul bucket (jamais d'accès non limité)
+                    overflowed.increment();
+                    tat = overflow;
+                } else {
+                    tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+                }
+            }
+
+            while (true) {
+                long current = tat.get();
+                long base = current - now > 0 ? current : now;
+                long allowedAt = base - burstToleranceNanos;
+                if (allowedAt - now > 0) {
+                    rejected.increment();
+                    return allowedAt - now;
+                }
+                if (tat.compareAndSet(current, base + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        int evictIdle(long now) {
+            int before = buckets.size();
+            // Bucket plein (tat <= now) : équivalent à une clé absente
+            buckets.entrySet().removeIf(e -> e.getValue().get() - now <= 0);
+            return before - buckets.size();
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("trackedKeys", buckets.size());
+            stats.put("rejected", rejected.sum());
+            stats.put("overflowed", overflowed.sum());
+            return stats;
+        }
+    }
+}
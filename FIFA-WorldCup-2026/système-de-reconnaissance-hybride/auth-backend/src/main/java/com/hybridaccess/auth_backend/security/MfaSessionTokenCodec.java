@@ -0,0 +1,170 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.MfaSession;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Chiffrement authentifié (AES-256-GCM) de l'état d'une session MFA dans un token opaque.
+ *
+ * Format : base64url( IV (12 octets) || chiffré || tag GCM (16 octets) )
+ * Payload binaire : version, sessionId, userId, requiredLevel, masques requis/vérifiés, expiration, email.
+ *
+ * La clé vient de mfa.session-token.key (base64, 32 octets) ou, à défaut, est dérivée de jwt.secret :
+ * toutes les instances qui partagent la configuration déchiffrent les mêmes tokens.
+ * L'IV aléatoire identifie chaque token émis (utilisé par le garde anti-rejeu).
+ */
+@Component
+@Slf4j
+public class MfaSessionTokenCodec {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final byte VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final byte[] AAD = "mfa-session-v1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    @Value("${mfa.session-token.key:}")
+    private String configuredKey;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private SecretKeySpec key;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (configuredKey != null && !configuredKey.isBlank()) {
+            keyBytes = Base64.getDecoder().decode(configuredKey.trim());
+            if (keyBytes.length != 32) {
+                throw new IllegalStateException("mfa.session-token.key must be 32 bytes (base64), got " + keyBytes.length);
+            }
+        } else {
+            keyBytes = sha256("mfa-session-token:" + jwtSecret);
+        }
+        key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    /**
+     * Chiffre l'état de la session.
+     *
+     * @return Le token opaque à renvoyer au client
+     */
+    public String encode(MfaSession session) {
+        byte[] email = session.getEmail().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 16 + 8 + 4 + 4 + 4 + 8 + 2 + email.length)
+                .put(VERSION)
+                .putLong(session.getSessionId().getMostSignificantBits())
+                .putLong(session.getSessionId().getLeastSignificantBits())
+                .putLong(session.getUserId())
+                .putInt(session.getRequiredLevel())
+                .putInt(session.getRequiredFactorsMask())
+                .putInt(session.getVerifiedFactorsMask())
+                .putLong(toEpochSecond(session.getExpiresAt()))
+                .putShort((short) email.length)
+                .put(email);
+
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(AAD);
+            byte[] sealed = cipher.doFinal(payload.array());
+
+            byte[] token = Arrays.copyOf(iv, IV_LENGTH + sealed.length);
+            System.arraycopy(sealed, 0, token, IV_LENGTH, sealed.length);
+            return BASE64_URL.encodeToString(token);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("MFA session token encryption failed", e);
+        }
+    }
+
+    /**
+     * Déchiffre et authentifie un token.
+     *
+     * @return La session, ou Optional.empty() si le token est invalide ou altéré
+     *         (l'expiration n'est pas vérifiée ici)
+     */
+    public Optional<MfaSession> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] raw = BASE64_URL_DECODER.decode(token);
+            if (raw.length <= IV_LENGTH + TAG_BITS / 8) {
+                return Optional.empty();
+            }
+
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, raw, 0, IV_LENGTH));
+            cipher.updateAAD(AAD);
+            ByteBuffer payload = ByteBuffer.wrap(cipher.doFinal(raw, IV_LENGTH, raw.length - IV_LENGTH));
+
+            if (payload.get() != VERSION) {
+                return Optional.empty();
+            }
+
+            MfaSession session = new MfaSession();
+            session.setSessionId(new UUID(payload.getLong(), payload.getLong()));
+            session.setUserId(payload.getLong());
+            session.setRequiredLevel(payload.getInt());
+            session.setRequiredFactorsMask(payload.getInt());
+            session.setVerifiedFactorsMask(payload.getInt());
+            session.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochSecond(payload.getLong()), ZoneId.systemDefault()));
+            byte[] email = new byte[payload.getShort()];
+            payload.get(email);
+            session.setEmail(new String(email, StandardCharsets.UTF_8));
+            return Optional.of(session);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            log.debug("Rejected MFA session token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Identifiant unique d'un token : son IV encodé (16 premiers caractères, 12 octets).
+     * À n'utiliser que sur un token déjà accepté par {@link #decode(String)}.
+     */
+    public static String tokenId(String token) {
+        return token.substring(0, IV_LENGTH * 4 / 3);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.exception.PayloadTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Limite la taille du corps JSON de POST /api/v1/auth/mfa/verify avant sa lecture par Jackson.
+ *
+ * - Content-Length au-delà de la limite : rejet (413) avant toute lecture
+ * - Corps sans Content-Length (chunked) : rejet (413) dès que la limite est franchie en lecture
+ *
+ * Limite : image Base64 de mfa.face-image.max-bytes + mfa.verify.max-json-overhead-bytes pour
+ * les autres champs. La variante multipart est déjà bornée par spring.servlet.multipart.
+ */
+@Component
+@Slf4j
+public class MfaVerifyBodyLimitFilter extends OncePerRequestFilter {
+
+    private static final String VERIFY_PATH = "/api/v1/auth/mfa/verify";
+
+    @Value("${mfa.face-image.max-bytes:2097152}")
+    private long maxImageBytes;
+
+    @Value("${mfa.verify.max-json-overhead-bytes:16384}")
+    private long maxJsonOverheadBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || !VERIFY_PATH.equals(request.getServletPath())) {
+            return true;
+        }
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(new BoundedRequest(request, maxBodyBytes()), response);
+    }
+
+    /**
+     * @return Taille maximale du corps : Base64 de l'image (4 caractères pour 3 octets) + autres champs
+     */
+    long maxBodyBytes() {
+        return (maxImageBytes + 2) / 3 * 4 + maxJsonOverheadBytes;
+    }
+
+    /**
+     * Requête dont le flux échoue (PayloadTooLargeException, traduite en 413 par le
+     * GlobalExceptionHandler) au-delà de la limite.
+     */
+    private static final class BoundedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private ServletInputStream stream;
+        private BufferedReader reader;
+
+        BoundedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            return bounded();
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getInputStream() has already been called for this request");
+                }
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(bounded(), charset));
+            }
+            return reader;
+        }
+
+        private ServletInputStream bounded() throws IOException {
+            if (stream == null) {
+                long declared = getContentLengthLong();
+                if (declared > limit) {
+                    throw tooLarge(declared + " bytes declared");
+                }
+                stream = new BoundedInputStream(super.getInputStream(), limit);
+            }
+            return stream;
+        }
+
+        private PayloadTooLargeException tooLarge(String detail) {
+            log.warn("❌ MFA verify body rejected: {} (max {} bytes)", detail, limit);
+            return new PayloadTooLargeException("Request body too large (max " + limit + " bytes)");
+        }
+
+        private final class BoundedInputStream extends ServletInputStream {
+
+            private final ServletInputStream delegate;
+            private final long limit;
+            private long read;
+
+            BoundedInputStream(ServletInputStream delegate, long limit) {
+                this.delegate = delegate;
+                this.limit = limit;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                if (b >= 0) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = delegate.read(b, off, len);
+                if (n > 0) {
+                    count(n);
+                }
+                return n;
+            }
+
+            private void count(int n) {
+                read += n;
+                if (read > limit) {
+                    throw tooLarge("more than " + limit + " bytes read");
+                }
+            }
+
+            @Override
+            public boolean isFinished() {
+                return delegate.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.RevokedToken;
+import com.hybridaccess.auth_backend.repository.RevokedTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liste de révocation des JWT (claim "jti"), consultée par {@link JwtAuthenticationFilter}.
+ *
+ * - Persistance : table revoked_tokens (source de vérité partagée entre instances)
+ * - Mémoire : filtre de Bloom + ensemble exact. Le cas courant "non révoqué" est tranché
+ *   par le filtre de Bloom seul, sans verrou ni I/O ; un positif est confirmé par l'ensemble exact
+ * - Synchronisation incrémentale par date de révocation, avec une fenêtre de recouvrement : les ID
+ *   IDENTITY pouvant être validés dans le désordre, un curseur sur l'ID sauterait des lignes.
+ *   Relire une révocation déjà connue est sans effet. Reconstruction complète après purge
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.sync-overlap-ms:60000}")
+    private long syncOverlapMs;
+
+    /**
+     * Filtre + ensemble exact, remplacés ensemble lors d'une reconstruction.
+     */
+    private volatile Snapshot snapshot;
+    private volatile boolean loaded;
+    private LocalDateTime lastSyncedAt;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Charge les révocations non expirées au démarrage.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        rebuild();
+        loaded = true;
+        log.info("Token revocation list loaded: {} revoked token(s)", snapshot.exact().size());
+    }
+
+    /**
+     * Vérifie si un token a été révoqué.
+     *
+     * @param jti Identifiant du token (claim "jti"), null pour les tokens émis sans jti
+     * @return true si le token est révoqué
+     */
+    public boolean isRevoked(String jti) {
+        Snapshot current = snapshot;
+        if (jti == null || current == null) {
+            return false;
+        }
+
+        lookups.increment();
+        if (!current.bloom().mightContain(jti)) {
+            return false;
+        }
+
+        bloomPositives.increment();
+        if (current.exact().contains(jti)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Révoque un token : persistance puis prise en compte immédiate sur cette instance.
+     * Les autres instances le voient à leur prochaine synchronisation.
+     *
+     * @param token Token vérifié à révoquer
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null || token.expiresAt() == null || isRevoked(token.jti())) {
+            return;
+        }
+
+        if (!revokedTokenRepository.existsByJti(token.jti())) {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .jti(token.jti())
+                    .expiresAt(LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault()))
+                    .build());
+        }
+        add(snapshot, token.jti());
+        log.info("JWT {} revoked for user {}", token.jti(), token.subject());
+    }
+
+    /**
+     * Synchronisation incrémentale : recharge les révocations créées depuis le dernier passage,
+     * moins la fenêtre de recouvrement (transactions validées tardivement, écart d'horloge entre nœuds).
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        if (!loaded) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        int added = catchUp(snapshot, lastSyncedAt, startedAt);
+        lastSyncedAt = startedAt;
+        if (added > 0) {
+            log.debug("Token revocation list synced: {} new entr(ies)", added);
+        }
+    }
+
+    /**
+     * Purge des révocations expirées (le JWT est rejeté par son "exp") puis reconstruction du filtre,
+     * un filtre de Bloom ne permettant pas la suppression.
+     */
+    @Scheduled(cron = "${jwt.revocation.purge-cron:0 30 * * * *}")
+    public synchronized void purgeExpired() {
+        if (!loaded) {
+            return;
+        }
+
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            rebuild();
+            log.info("🗑️ Purged {} expired token revocations, {} remaining", deleted, snapshot.exact().size());
+        }
+    }
+
+    /**
+     * Statistiques de la liste de révocation.
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", current != null ? current.exact().size() : 0);
+        stats.put("bloomBits", current != null ? current.bloom().bitCount() : 0);
+        stats.put("hashFunctions", current != null ? current.bloom().hashFunctions() : 0);
+        stats.put("lookups", lookups.sum());
+        stats.put("bloomPositives", bloomPositives.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("lastSyncedAt", lastSyncedAt);
+        return stats;
+    }
+
+    /**
+     * Reconstruit filtre et ensemble depuis la base, puis rattrape les révocations
+     * ajoutées pendant la reconstruction.
+     */
+    private void rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<RevokedToken> rows = revokedTokenRepository.findByExpiresAtAfterOrderByIdAsc(startedAt);
+
+        Snapshot fresh = new Snapshot(
+                BloomFilter.create(Math.max(expectedEntries, rows.size() * 2), falsePositiveRate),
+                ConcurrentHashMap.newKeySet());
+        for (RevokedToken row : rows) {
+            add(fresh, row.getJti());
+        }
+        snapshot = fresh;
+
+        // Les révocations locales écrites dans l'ancien snapshot sont déjà persistées : on les relit
+        catchUp(fresh, startedAt, LocalDateTime.now());
+        lastSyncedAt = startedAt;
+    }
+
+    /**
+     * Ajoute les révocations non expirées créées depuis une date, moins la fenêtre de recouvrement.
+     *
+     * @return Nombre de révocations absentes jusqu'ici
+     */
+    private int catchUp(Snapshot target, LocalDateTime since, LocalDateTime now) {
+        List<RevokedToken> rows = revokedTokenRepository.findByRevokedAtGreaterThanEqual(
+                since.minusNanos(syncOverlapMs * 1_000_000));
+        int added = 0;
+        for (RevokedToken row : rows) {
+            if (row.getExpiresAt().isAfter(now) && !target.exact().contains(row.getJti())) {
+                add(target, row.getJti());
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static void add(Snapshot target, String jti) {
+        // Ensemble exact d'abord : un positif du filtre trouve toujours l'entrée
+        target.exact().add(jti);
+        target.bloom().put(jti);
+    }
+
+    private record Snapshot(BloomFilter bloom, Set<String> exact) {
+    }
+
+    /**
+     * Filtre de Bloom lock-free (bits dans un AtomicLongArray, double hachage Kirsch-Mitzenmacher).
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashFunctions;
+
+        private BloomFilter(long bitCount, int hashFunctions) {
+            this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashFunctions = hashFunctions;
+        }
+
+        static BloomFilter create(int expectedEntries, double falsePositiveRate) {
+            int n = Math.max(1, expectedEntries);
+            long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int k = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+            return new BloomFilter(Math.max(64, bits), k);
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashFunctions; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashFunctions; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        long bitCount() {
+            return bitCount;
+        }
+
+        int hashFunctions() {
+            return hashFunctions;
+        }
+
+        private long index(int combined) {
+            return (combined & Integer.MAX_VALUE) % bitCount;
+        }
+
+        /**
+         * FNV-1a 64 bits suivi du mélange final de MurmurHash3.
+         */
+        private static long hash64(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
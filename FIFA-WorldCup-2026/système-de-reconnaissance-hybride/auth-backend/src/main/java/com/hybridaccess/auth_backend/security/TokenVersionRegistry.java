@@ -0,0 +1,182 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.User;
+import com.hybridaccess.auth_backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre en mémoire des versions de token par utilisateur.
+ *
+ * Permet de reconstruire le principal à partir des claims JWT (mode stateless)
+ * tout en refusant les tokens émis avant une désactivation ou un changement de niveau.
+ * Seuls les utilisateurs dont la version a été incrémentée sont présents dans la map :
+ * l'absence d'entrée signifie "version 0".
+ *
+ * Les incréments faits par une autre instance sont repris par une synchronisation périodique
+ * sur updated_at, avec une fenêtre de recouvrement (transactions longues, écart d'horloge entre nœuds).
+ * Une suppression n'apparaît pas dans updated_at : les IDs existants sont relus périodiquement
+ * et seuls les utilisateurs présents au dernier passage peuvent être reconstruits depuis les claims
+ * (voir {@link #isKnownUser(Long)}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.token-version.sync-overlap-ms:60000}")
+    private long syncOverlapMs;
+
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    /**
+     * IDs existants lors du dernier passage de {@link #scanUsers()} (vide avant le premier).
+     */
+    private volatile BitSet knownUsers = new BitSet();
+
+    /**
+     * Date du dernier chargement (null tant que le chargement initial n'a pas eu lieu).
+     */
+    private LocalDateTime lastSyncedAt;
+
+    /**
+     * Charge les versions persistées au démarrage (une seule requête).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        merge(userRepository.findTokenVersions());
+        lastSyncedAt = startedAt;
+        scanUsers();
+        log.info("Token version registry loaded: {} user(s) with revoked tokens", minimumVersions.size());
+    }
+
+    /**
+     * Synchronisation incrémentale : recharge les versions des utilisateurs modifiés depuis le dernier
+     * passage, moins la fenêtre de recouvrement. Les versions ne faisant que croître, relire une même
+     * ligne est sans effet.
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-version.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        if (lastSyncedAt == null) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Object[]> rows = userRepository.findTokenVersionsUpdatedSince(lastSyncedAt.minusNanos(syncOverlapMs * 1_000_000));
+        int changed = merge(rows);
+        lastSyncedAt = startedAt;
+        if (changed > 0) {
+            log.debug("Token version registry synced: {} user(s) with a new token version", changed);
+        }
+    }
+
+    /**
+     * Relit les IDs existants : un utilisateur supprimé par une autre instance disparaît
+     * de {@link #isKnownUser(Long)} au plus tard au passage suivant. Inutile hors mode stateless.
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-version.user-scan-interval-ms:30000}",
+            initialDelayString = "${jwt.token-version.user-scan-interval-ms:30000}")
+    public void scanUsers() {
+        if (!statelessPrincipal) {
+            return;
+        }
+        knownUsers = toBitSet(userRepository.findAllIds());
+    }
+
+    /**
+     * Indique si l'utilisateur existait lors du dernier passage de {@link #scanUsers()}.
+     * Sinon (utilisateur créé depuis, ou supprimé), le principal doit être chargé depuis la base.
+     *
+     * @param userId ID de l'utilisateur (claim "userId")
+     */
+    public boolean isKnownUser(Long userId) {
+        return userId != null && userId >= 0 && userId <= Integer.MAX_VALUE
+                && knownUsers.get(userId.intValue());
+    }
+
+    /**
+     * Vérifie qu'un token porte la version courante de l'utilisateur.
+     *
+     * @param userId ID de l'utilisateur (claim "userId")
+     * @param tokenVersion Version portée par le token (claim "ver")
+     * @return true si le token n'a pas été invalidé
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer minimum = minimumVersions.get(userId);
+        return minimum == null || tokenVersion >= minimum;
+    }
+
+    /**
+     * Incrémente la version de l'utilisateur : tous ses tokens existants deviennent invalides.
+     * L'entité doit ensuite être sauvegardée par l'appelant.
+     *
+     * @param user L'utilisateur désactivé ou dont le niveau a changé
+     */
+    public void bump(User user) {
+        int next = (user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1;
+        user.setTokenVersion(next);
+        if (user.getId() != null) {
+            minimumVersions.merge(user.getId(), next, Math::max);
+        }
+        log.info("Token version bumped to {} for user {}", next, user.getEmail());
+    }
+
+    /**
+     * Invalide immédiatement, sur cette instance, les tokens d'un utilisateur supprimé.
+     * Les autres instances cessent de le reconnaître à leur prochain {@link #scanUsers()}.
+     */
+    public void revokeAll(Long userId) {
+        minimumVersions.put(userId, Integer.MAX_VALUE);
+        if (userId != null && userId >= 0 && userId <= Integer.MAX_VALUE) {
+            BitSet users = (BitSet) knownUsers.clone();
+            users.clear(userId.intValue());
+            knownUsers = users;
+        }
+    }
+
+    private static BitSet toBitSet(List<Long> ids) {
+        BitSet bits = new BitSet();
+        for (Long id : ids) {
+            if (id != null && id >= 0 && id <= Integer.MAX_VALUE) {
+                bits.set(id.intValue());
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Fusionne des paires [id, tokenVersion] en gardant la plus grande version.
+     *
+     * @return Nombre d'utilisateurs dont la version minimale a augmenté
+     */
+    private int merge(List<Object[]> rows) {
+        int changed = 0;
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            Integer version = (Integer) row[1];
+            Integer previous = minimumVersions.get(userId);
+            if (previous == null || previous < version) {
+                minimumVersions.merge(userId, version, Math::max);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
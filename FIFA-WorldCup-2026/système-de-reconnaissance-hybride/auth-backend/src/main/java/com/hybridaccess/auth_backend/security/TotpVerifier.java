@@ -0,0 +1,242 @@
+package com.hybridaccess.auth_backend.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base32;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moteur unique de vérification TOTP (RFC 6238, HMAC-SHA1, 6 chiffres, pas de 30 s),
+ * compatible Google Authenticator / Authy.
+ *
+ * - Secret Base32 décodé une seule fois par vérification (ou jamais, via un {@link Secret} en cache),
+ *   MAC réutilisé par thread
+ * - Tous les pas de la fenêtre sont calculés en une passe et comparés sans sortie anticipée
+ *   (temps constant vis-à-vis du code soumis)
+ * - Anti-rejeu : par secret, le dernier pas accepté est mémorisé ; un code d'un pas
+ *   inférieur ou égal est refusé. Entrées bornées et purgées dès qu'elles sortent de la fenêtre
+ */
+@Component
+@Slf4j
+public class TotpVerifier {
+
+    private static final long TIME_STEP_MS = 30_000L;
+    private static final int DIGITS = 6;
+    private static final int MODULUS = 1_000_000;
+    private static final int MAX_WINDOW = 10;
+
+    private static final ThreadLocal<Mac> HMAC_SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("HmacSHA1 not available", e);
+        }
+    });
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Value("${mfa.otp.replay-guard-max-size:100000}")
+    private int replayGuardMaxSize;
+
+    /**
+     * Dernier pas accepté par secret (clé : empreinte SHA-256 du secret)
+     */
+    private final Map<String, Long> lastAcceptedSteps = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+
+    /**
+     * Vérifie un code TOTP.
+     *
+     * @param base32Secret Secret Base32 de l'utilisateur
+     * @param code Code à 6 chiffres saisi
+     * @param window Nombre de pas tolérés de part et d'autre du pas courant
+     * @return true si le code est valide et n'a pas déjà été utilisé
+     */
+    public boolean verify(String base32Secret, String code, int window) {
+        if (base32Secret == null || base32Secret.isBlank()) {
+            rejected.increment();
+            return false;
+        }
+        return verify(Secret.of(base32Secret), code, window);
+    }
+
+    /**
+     * Vérifie un code TOTP avec un secret déjà décodé (aucun décodage ni hachage par appel).
+     *
+     * @param secret Secret décodé, voir {@link Secret#of(String)}
+     * @param code Code à 6 chiffres saisi
+     * @param window Nombre de pas tolérés de part et d'autre du pas courant
+     * @return true si le code est valide et n'a pas déjà été utilisé
+     */
+    public boolean verify(Secret secret, String code, int window) {
+        return verify(secret, code, window, System.currentTimeMillis());
+    }
+
+    /**
+     * Vérification à un instant donné (vecteurs de test RFC 6238).
+     */
+    boolean verify(Secret secret, String code, int window, long nowMillis) {
+        int submitted = parseCode(code);
+        if (submitted < 0) {
+            rejected.increment();
+            return false;
+        }
+
+        byte[] key = secret.key();
+        long currentStep = nowMillis / TIME_STEP_MS;
+        int w = Math.max(0, Math.min(window, MAX_WINDOW));
+
+        long matchedStep = -1;
+        try {
+            Mac mac = HMAC_SHA1.get();
+            mac.init(new SecretKeySpec(key, "HmacSHA1"));
+            byte[] counter = new byte[8];
+            for (long step = currentStep - w; step <= currentStep + w; step++) {
+                int diff = generate(mac, counter, step) ^ submitted;
+                // Tous les pas sont calculés et comparés, sans sortie anticipée
+                long isMatch = ((diff | -diff) >>> 31) ^ 1;
+                matchedStep += isMatch * (step - matchedStep);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("TOTP computation failed", e);
+        }
+
+        if (matchedStep < 0) {
+            rejected.increment();
+            return false;
+        }
+        if (!markAccepted(secret.replayKey(), matchedStep)) {
+            replays.increment();
+            log.warn("❌ TOTP code replay rejected (time step {})", matchedStep);
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Retire les entrées anti-rejeu sorties de toute fenêtre de vérification.
+     */
+    @Scheduled(fixedDelayString = "${mfa.otp.replay-guard-purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long oldestUsefulStep = System.currentTimeMillis() / TIME_STEP_MS - MAX_WINDOW;
+        lastAcceptedSteps.values().removeIf(step -> step < oldestUsefulStep);
+    }
+
+    /**
+     * Statistiques (codes acceptés, refusés, rejeux bloqués).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("replaysRejected", replays.sum());
+        stats.put("replayGuardSize", lastAcceptedSteps.size());
+        return stats;
+    }
+
+    /**
+     * Enregistre le pas accepté ; refuse si un pas égal ou postérieur a déjà été accepté.
+     */
+    private boolean markAccepted(String replayKey, long step) {
+        if (lastAcceptedSteps.size() >= replayGuardMaxSize) {
+            purgeExpired();
+            if (lastAcceptedSteps.size() >= replayGuardMaxSize) {
+                log.warn("⚠️ TOTP replay guard full ({} entries), rejecting code", lastAcceptedSteps.size());
+                return false;
+            }
+        }
+
+        boolean[] fresh = new boolean[1];
+        lastAcceptedSteps.compute(replayKey, (k, last) -> {
+            if (last != null && last >= step) {
+                return last;
+            }
+            fresh[0] = true;
+            return step;
+        });
+        return fresh[0];
+    }
+
+    /**
+     * Code HOTP (RFC 4226) pour un pas donné, MAC déjà initialisé.
+     */
+    private static int generate(Mac mac, byte[] counter, long step) {
+        long value = step;
+        for (int i = 7; i >= 0; i--) {
+            counter[i] = (byte) value;
+            value >>>= 8;
+        }
+        byte[] hash = mac.doFinal(counter);
+        int offset = hash[hash.length - 1] & 0x0F;
+        int binary = ((hash[offset] & 0x7F) << 24)
+                | ((hash[offset + 1] & 0xFF) << 16)
+                | ((hash[offset + 2] & 0xFF) << 8)
+                | (hash[offset + 3] & 0xFF);
+        return binary % MODULUS;
+    }
+
+    /**
+     * @return Le code en entier, ou -1 s'il ne contient pas exactement 6 chiffres
+     */
+    private static int parseCode(String code) {
+        if (code == null) {
+            return -1;
+        }
+        String trimmed = code.trim();
+        if (trimmed.length() != DIGITS) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < DIGITS; i++) {
+            char c = trimmed.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Secret TOTP décodé : clé HMAC et clé anti-rejeu (empreinte SHA-256 du secret Base32).
+     * Peut être mis en cache : la vérification n'a alors plus rien à décoder ni hacher.
+     */
+    public record Secret(byte[] key, String replayKey) {
+
+        public static Secret of(String base32Secret) {
+            String normalized = base32Secret.trim().toUpperCase(Locale.ROOT);
+            return new Secret(new Base32().decode(normalized), fingerprint(normalized));
+        }
+
+        private static String fingerprint(String base32Secret) {
+            MessageDigest md = SHA_256.get();
+            md.reset();
+            byte[] hash = md.digest(base32Secret.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Principal Spring Security portant l'entité {@link User} chargée par {@link CustomUserDetailsService}.
+ *
+ * Permet au login de réutiliser l'utilisateur déjà lu pendant l'authentification
+ * (DaoAuthenticationProvider) au lieu de le relire en base.
+ */
+public class UserPrincipal extends org.springframework.security.core.userdetails.User {
+
+    private final transient User user;
+
+    public UserPrincipal(User user, Collection<? extends GrantedAuthority> authorities) {
+        this(user, user.getPassword(), authorities);
+    }
+
+    /**
+     * @param password Hash à exposer au lieu de celui de l'entité (après ré-encodage)
+     */
+    public UserPrincipal(User user, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getEmail(), password, true, true, true, Boolean.TRUE.equals(user.getActive()), authorities);
+        this.user = user;
+    }
+
+    /**
+     * @return L'entité utilisateur telle que lue lors de l'authentification
+     */
+    public User getUser() {
+        return user;
+    }
+}
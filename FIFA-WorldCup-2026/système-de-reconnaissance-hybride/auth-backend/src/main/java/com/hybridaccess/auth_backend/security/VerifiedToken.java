@@ -0,0 +1,74 @@
+package com.hybridaccess.auth_backend.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Claims d'un token JWT dont la signature a déjà été vérifiée.
+ * Immuable : construit une seule fois par {@link JwtTokenProvider#verifyToken(String)}.
+ *
+ * @param subject Email de l'utilisateur
+ * @param userId ID de l'utilisateur (claim "userId")
+ * @param priorityLevel Niveau de priorité (claim "priorityLevel")
+ * @param levelName Nom du niveau (claim "levelName")
+ * @param mfaFactors Facteurs MFA vérifiés (vide si token sans MFA)
+ * @param tokenVersion Version de token de l'utilisateur à l'émission (claim "ver", 0 si absent)
+ * @param jti Identifiant unique du token (claim "jti", null pour les anciens tokens)
+ * @param expiresAt Date d'expiration (claim "exp")
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        Integer priorityLevel,
+        String levelName,
+        Set<String> mfaFactors,
+        int tokenVersion,
+        String jti,
+        Instant expiresAt
+) {
+
+    public VerifiedToken {
+        mfaFactors = mfaFactors == null ? Set.of() : Set.copyOf(mfaFactors);
+    }
+
+    /**
+     * Construit l'objet à partir du payload déjà vérifié.
+     */
+    static VerifiedToken fromClaims(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        Number priorityLevel = claims.get("priorityLevel", Number.class);
+        Number tokenVersion = claims.get("ver", Number.class);
+        Collection<?> factors = claims.get("mfaFactors", Collection.class);
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                userId != null ? userId.longValue() : null,
+                priorityLevel != null ? priorityLevel.intValue() : null,
+                claims.get("levelName", String.class),
+                factors != null
+                        ? factors.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet())
+                        : Set.of(),
+                tokenVersion != null ? tokenVersion.intValue() : 0,
+                claims.getId(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    /**
+     * Indique si le token porte les claims nécessaires pour reconstruire le principal sans DB.
+     */
+    public boolean hasPrincipalClaims() {
+        return subject != null && userId != null && priorityLevel != null && levelName != null;
+    }
+
+    /**
+     * Vérifie si le token est expiré à l'instant donné.
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
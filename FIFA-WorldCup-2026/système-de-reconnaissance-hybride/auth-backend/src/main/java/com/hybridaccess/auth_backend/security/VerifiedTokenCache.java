@@ -0,0 +1,156 @@
+package com.hybridaccess.auth_backend.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache borné des tokens JWT déjà vérifiés, placé devant {@link JwtTokenProvider#verifyToken(String)}.
+ *
+ * - Clé : empreinte SHA-256 du token (le token brut n'est jamais conservé)
+ * - Lecture sans verrou (ConcurrentHashMap.get)
+ * - Un token n'est jamais servi après son "exp" ; les entrées expirées sont retirées
+ *   via une DelayQueue (à l'écriture et par une purge planifiée)
+ * - Quand le cache est plein, les nouveaux tokens sont vérifiés sans être mis en cache
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VerifiedTokenCache {
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    /**
+     * Retourne les claims vérifiés du token, depuis le cache si possible.
+     *
+     * @param token Le token JWT brut
+     * @return Les claims vérifiés, ou Optional.empty() si le token est invalide ou expiré
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!enabled) {
+            return jwtTokenProvider.verifyToken(token);
+        }
+
+        String key = digest(token);
+        VerifiedToken cached = entries.get(key);
+
+        if (cached != null) {
+            if (!cached.isExpiredAt(Instant.now())) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Optional<VerifiedToken> verified = jwtTokenProvider.verifyToken(token);
+        verified.ifPresent(v -> put(key, v));
+        return verified;
+    }
+
+    /**
+     * Retire les entrées dont l'expiration est atteinte.
+     */
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval-ms:1000}")
+    public void purgeExpired() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            if (entries.remove(expiry.key, expiry.token)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Statistiques du cache (hits, misses, evictions, taille).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private void put(String key, VerifiedToken token) {
+        if (token.expiresAt() == null) {
+            // Pas d'expiration : jamais mis en cache
+            return;
+        }
+
+        purgeExpired();
+        if (entries.size() >= maxSize) {
+            return;
+        }
+
+        if (entries.putIfAbsent(key, token) == null) {
+            expiries.add(new Expiry(key, token));
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * Élément de la DelayQueue : disponible exactement à l'expiration du token.
+     */
+    private record Expiry(String key, VerifiedToken token) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long remainingMs = token.expiresAt().toEpochMilli() - System.currentTimeMillis();
+            return unit.convert(remainingMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -19,6 +19,17 @@ public interface AccessLevelService {
      */
     AccessLevelReadDTO createAccessLevel(AccessLevelCreateDTO dto);
 
+    /**
+     * Met à jour un niveau d'accès (y compris les facteurs MFA requis, appliqués immédiatement).
+     *
+     * @param id L'ID du niveau
+     * @param dto Les nouvelles données du niveau
+     * @return Le niveau mis à jour
+     * @throws com.hybridaccess.auth_backend.exception.ResourceNotFoundException si non trouvé
+     * @throws com.hybridaccess.auth_backend.exception.BusinessException si le nom existe déjà
+     */
+    AccessLevelReadDTO updateAccessLevel(Long id, AccessLevelCreateDTO dto);
+
     /**
      * Récupère un niveau d'accès par ID.
      *
@@ -25,6 +25,7 @@ public class AccessLevelServiceImpl implements AccessLevelService {
 
     private final AccessLevelRepository accessLevelRepository;
     private final UserRepository userRepository;
+    private final MfaPolicy mfaPolicy;
 
     @Override
     public AccessLevelReadDTO createAccessLevel(AccessLevelCreateDTO dto) {
@@ -35,6 +36,30 @@ public class AccessLevelServiceImpl implements AccessLevelService {
 
         AccessLevel accessLevel = MapperUtil.toAccessLevelEntity(dto);
         AccessLevel saved = accessLevelRepository.save(accessLevel);
+        mfaPolicy.refresh();
+        return MapperUtil.toAccessLevelReadDTO(saved);
+    }
+
+    @Override
+    public AccessLevelReadDTO updateAccessLevel(Long id, AccessLevelCreateDTO dto) {
+        AccessLevel accessLevel = accessLevelRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("AccessLevel", "id", id));
+
+        // Vérifier que le nouveau nom n'est pas déjà utilisé
+        if (!accessLevel.getName().equals(dto.getName()) && accessLevelRepository.existsByName(dto.getName())) {
+            throw new BusinessException("Un niveau d'accès avec ce nom existe déjà : " + dto.getName());
+        }
+
+        accessLevel.setName(dto.getName());
+        accessLevel.setDescription(dto.getDescription());
+        accessLevel.setPasswordRequired(dto.getPasswordRequired());
+        accessLevel.setBiometricRequired(dto.getBiometricRequired());
+        accessLevel.setOtpRequired(dto.getOtpRequired());
+        accessLevel.setPriorityLevel(dto.getPriorityLevel());
+
+        AccessLevel saved = accessLevelRepository.save(accessLevel);
+        // La politique MFA est recompilée immédiatement (sans redéploiement)
+        mfaPolicy.refresh();
         return MapperUtil.toAccessLevelReadDTO(saved);
     }
 
@@ -74,5 +99,6 @@ public class AccessLevelServiceImpl implements AccessLevelService {
         }
 
         accessLevelRepository.delete(accessLevel);
+        mfaPolicy.refresh();
     }
 }
@@ -38,4 +38,22 @@ public interface AuthService {
      * @return La réponse de login avec le token si tous les facteurs sont validés
      */
     LoginResponse verifyMfaFactor(String sessionId, String factorType, String factorData, String imageBase64);
+
+    /**
+     * Échange un refresh token contre un nouveau JWT et un nouveau refresh token (rotation).
+     * Ne passe ni par l'AuthenticationManager ni par l'encodeur de mot de passe.
+     *
+     * @param refreshToken Le refresh token brut
+     * @return La réponse avec le nouveau token et le nouveau refresh token
+     * @throws com.hybridaccess.auth_backend.exception.UnauthorizedException si le refresh token est invalide ou réutilisé
+     */
+    LoginResponse refresh(String refreshToken);
+
+    /**
+     * Révoque la session associée à un refresh token, ainsi que le JWT courant s'il est fourni.
+     *
+     * @param refreshToken Le refresh token brut
+     * @param accessToken Le JWT courant (sans préfixe "Bearer "), peut être null
+     */
+    void logout(String refreshToken, String accessToken);
 }
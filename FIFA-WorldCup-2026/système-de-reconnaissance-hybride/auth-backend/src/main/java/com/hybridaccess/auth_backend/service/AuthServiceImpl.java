@@ -1,16 +1,19 @@
 package com.hybridaccess.auth_backend.service;
 
+import com.hybridaccess.auth_backend.client.FaceServiceClient;
 import com.hybridaccess.auth_backend.dto.auth.LoginRequest;
 import com.hybridaccess.auth_backend.dto.auth.LoginResponse;
 import com.hybridaccess.auth_backend.dto.auth.RegisterRequest;
 import com.hybridaccess.auth_backend.dto.user.UserReadDTO;
 import com.hybridaccess.auth_backend.entity.AccessLevel;
+import com.hybridaccess.auth_backend.entity.MfaSession;
 import com.hybridaccess.auth_backend.entity.User;
 import com.hybridaccess.auth_backend.exception.BusinessException;
 import com.hybridaccess.auth_backend.exception.UnauthorizedException;
 import com.hybridaccess.auth_backend.repository.AccessLevelRepository;
 import com.hybridaccess.auth_backend.repository.UserRepository;
 import com.hybridaccess.auth_backend.security.JwtTokenProvider;
+import com.hybridaccess.auth_backend.security.UserPrincipal;
 import com.hybridaccess.auth_backend.util.MapperUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,12 +24,12 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Implémentation du service d'authentification.
@@ -44,7 +47,12 @@ public class AuthServiceImpl implements AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final RiskAssessmentService riskAssessmentService;
     private final DecisionEngine decisionEngine;
-    private final com.hybridaccess.auth_backend.security.OtpService otpService;
+    private final TotpService totpService;
+    private final FaceServiceClient faceServiceClient;
+    private final RefreshTokenService refreshTokenService;
+    private final FailedLoginService failedLoginService;
+    private final MfaSessionService mfaSessionService;
+    private final com.hybridaccess.auth_backend.security.TokenRevocationList tokenRevocationList;
 
     @Override
     public UserReadDTO register(RegisterRequest registerRequest) {
@@ -74,10 +82,15 @@ public class AuthServiceImpl implements AuthService {
         return MapperUtil.toUserReadDTO(savedUser);
     }
 
+    /**
+     * Pipeline de login : une seule lecture de l'utilisateur (pendant l'authentification)
+     * et une seule écriture (UPDATE ciblé), sans transaction englobante.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public LoginResponse login(LoginRequest loginRequest) {
         try {
-            // Authentification de base (email + password)
+            // Authentification de base (email + password) - charge l'utilisateur une seule fois
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
@@ -85,14 +98,14 @@ public class AuthServiceImpl implements AuthService {
                     )
             );
 
-            // Récupérer l'utilisateur
-            User user = userRepository.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new UnauthorizedException("Utilisateur non trouvé"));
+            // Réutiliser l'entité portée par le principal
+            User user = ((UserPrincipal) authentication.getPrincipal()).getUser();
 
-            // Réinitialiser les tentatives échouées
+            // Réinitialiser les tentatives échouées : UPDATE ciblé, l'entité (détachée) est alignée en mémoire
+            LocalDateTime now = LocalDateTime.now();
+            userRepository.recordSuccessfulLogin(user.getId(), now);
             user.setFailedLoginAttempts(0);
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            user.setLastLogin(now);
 
             // Évaluer le risque
             int riskScore = riskAssessmentService.calculateRiskScore(user, null);
@@ -102,37 +115,37 @@ public class AuthServiceImpl implements AuthService {
 
             if (requiredFactors.isEmpty()) {
                 // Pas de MFA requis, générer le token directement
-                String token = jwtTokenProvider.generateToken(authentication, userRepository);
+                String token = jwtTokenProvider.generateTokenFromUsername(user.getEmail(), user);
 
                 log.info("User {} logged in successfully without MFA", user.getEmail());
 
                 return LoginResponse.builder()
                         .token(token)
+                        .refreshToken(refreshTokenService.issue(user))
                         .mfaRequired(false)
                         .riskScore(riskScore)
                         .message("Authentification réussie")
                         .build();
             } else {
-                // MFA requis
-                String sessionId = UUID.randomUUID().toString();
+                // MFA requis : ouvrir la session MFA (stockée, ou portée par un token chiffré)
+                MfaSession mfaSession = mfaSessionService.createSession(
+                        user, user.getAccessLevel().getPriorityLevel(), requiredFactors);
 
                 log.info("User {} requires MFA: {}", user.getEmail(), requiredFactors);
 
                 return LoginResponse.builder()
                         .mfaRequired(true)
                         .requiredFactors(requiredFactors)
-                        .sessionId(sessionId)
+                        .sessionId(mfaSession.getSessionId().toString())
+                        .mfaSessionToken(mfaSessionService.issueToken(mfaSession))
                         .riskScore(riskScore)
                         .message("Facteurs d'authentification supplémentaires requis")
                         .build();
             }
 
         } catch (AuthenticationException e) {
-            // Incrémenter les tentatives échouées
-            userRepository.findByEmail(loginRequest.getEmail()).ifPresent(user -> {
-                user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-                userRepository.save(user);
-            });
+            // Incrémenter les tentatives échouées (UPDATE atomique, ou write-behind)
+            failedLoginService.recordFailure(loginRequest.getEmail());
 
             log.warn("Failed login attempt for user: {}", loginRequest.getEmail());
             throw new UnauthorizedException("Email ou mot de passe incorrect");
@@ -158,11 +171,6 @@ public class AuthServiceImpl implements AuthService {
             
             try {
                 // Call face-service to verify the face
-                var faceServiceClient = new com.hybridaccess.auth_backend.client.FaceServiceClient(
-                    new org.springframework.web.client.RestTemplate(),
-                    "http://localhost:8001"
-                );
-                
                 var verifyResponse = faceServiceClient.verifyFace(userId, imageBase64);
                 
                 // Check if user was auto-enrolled (first-time enrollment)
@@ -202,12 +210,15 @@ public class AuthServiceImpl implements AuthService {
                 
                 return LoginResponse.builder()
                         .token(token)
+                        .refreshToken(refreshTokenService.issue(user))
                         .mfaRequired(false)
                         .message(message)
                         .build();
                 
-            } catch (com.hybridaccess.auth_backend.exception.MfaException e) {
-                // Laisser passer MfaException pour qu'elle soit attrapée par @ExceptionHandler
+            } catch (com.hybridaccess.auth_backend.exception.MfaException
+                     | com.hybridaccess.auth_backend.exception.ServiceUnavailableException e) {
+                // Laisser passer MfaException / ServiceUnavailableException (503, circuit face-service ouvert)
+                // pour qu'elles soient attrapées par @ExceptionHandler
                 throw e;
             } catch (Exception e) {
                 log.error("Error during face verification: {}", e.getMessage());
@@ -245,7 +256,7 @@ public class AuthServiceImpl implements AuthService {
             }
             
             // Verify OTP code
-            boolean isValid = otpService.verifyCode(user.getOtpSecret(), otpCode.trim());
+            boolean isValid = totpService.verifyForUser(user.getId(), otpCode.trim());
             
             if (!isValid) {
                 log.warn("Invalid OTP code provided for user {}", userId);
@@ -263,6 +274,7 @@ public class AuthServiceImpl implements AuthService {
             
             return LoginResponse.builder()
                     .token(token)
+                    .refreshToken(refreshTokenService.issue(user))
                     .mfaRequired(false)
                     .message("Authentification OTP réussie")
                     .build();
@@ -274,4 +286,34 @@ public class AuthServiceImpl implements AuthService {
             "Type de facteur MFA non supporté: " + factorType
         );
     }
+
+    @Override
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public LoginResponse refresh(String refreshToken) {
+        // Pas d'AuthenticationManager ni de BCrypt : simple lookup par hash + rotation
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = rotation.user();
+
+        // Session ouverte après MFA : les claims MFA sont conservés
+        String token = rotation.mfaFactors().isEmpty()
+                ? jwtTokenProvider.generateTokenFromUsername(user.getEmail(), user)
+                : jwtTokenProvider.generateTokenWithMfaClaims(user, rotation.mfaFactors());
+        log.info("Access token refreshed for user {}", user.getEmail());
+
+        return LoginResponse.builder()
+                .token(token)
+                .refreshToken(rotation.refreshToken())
+                .mfaRequired(false)
+                .message("Token renouvelé")
+                .build();
+    }
+
+    @Override
+    public void logout(String refreshToken, String accessToken) {
+        refreshTokenService.revoke(refreshToken);
+        if (accessToken != null) {
+            // Le JWT reste sinon valide jusqu'à son expiration
+            jwtTokenProvider.verifyToken(accessToken).ifPresent(tokenRevocationList::revoke);
+        }
+    }
 }
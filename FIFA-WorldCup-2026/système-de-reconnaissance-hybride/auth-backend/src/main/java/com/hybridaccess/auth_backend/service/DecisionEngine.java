@@ -1,5 +1,6 @@
 package com.hybridaccess.auth_backend.service;
 
+import com.hybridaccess.auth_backend.client.FaceServiceCircuitBreaker;
 import com.hybridaccess.auth_backend.entity.AccessLevel;
 import com.hybridaccess.auth_backend.entity.User;
 import lombok.RequiredArgsConstructor;
@@ -8,7 +9,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -16,17 +18,31 @@ import java.util.Set;
  * Moteur de décision pour déterminer les facteurs d'authentification requis
  * BASÉ SUR LE NIVEAU DE LA RESSOURCE (resource-based MFA).
  * 
- * Règles MFA par niveau de ressource:
+ * Règles MFA par niveau de ressource : lues dans access_levels via {@link MfaPolicy}
+ * (colonnes biometric_required → FACE, otp_required → OTP). Données initiales :
  * - L1 (PUBLIC): Password only (no additional MFA)
  * - L2 (CONFIDENTIEL): Password + FACE
  * - L3 (SECRET): Password + OTP
  * - L4 (TOP_SECRET): Password + OTP + FACE
+ *
+ * Repli OTP : tant que le circuit face-service est ouvert, FACE est remplacé par OTP
+ * pour les niveaux ≤ mfa.face-fallback.max-level (utilisateurs ayant activé l'OTP).
+ * Au-delà, FACE reste exigé (échec fermé).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DecisionEngine {
 
+    private final MfaPolicy mfaPolicy;
+    private final FaceServiceCircuitBreaker faceServiceCircuitBreaker;
+
+    @Value("${mfa.face-fallback.enabled:true}")
+    private boolean faceFallbackEnabled;
+
+    @Value("${mfa.face-fallback.max-level:3}")
+    private int faceFallbackMaxLevel;
+
     @Value("${risk.threshold.medium:60}")
     private int mediumRiskThreshold;
 
@@ -41,36 +57,43 @@ public class DecisionEngine {
      * pas au moment du login.
      *
      * @param requiredLevel Le niveau de priorité de la ressource (1-4)
-     * @return Set des facteurs MFA requis (FACE, OTP, ou les deux)
+     * @return Set des facteurs MFA requis (FACE, OTP, ou les deux), non modifiable
      */
     public Set<String> getRequiredFactorsForLevel(int requiredLevel) {
-        Set<String> factors = new HashSet<>();
-        
-        switch (requiredLevel) {
-            case 4: // TOP_SECRET - requires both FACE and OTP
-                factors.add("FACE");
-                factors.add("OTP");
-                log.debug("L4 (TOP_SECRET) resource - requiring FACE + OTP");
-                break;
-                
-            case 3: // SECRET - requires OTP
-                factors.add("OTP");
-                log.debug("L3 (SECRET) resource - requiring OTP");
-                break;
-                
-            case 2: // CONFIDENTIEL - requires FACE
-                factors.add("FACE");
-                log.debug("L2 (CONFIDENTIEL) resource - requiring FACE");
-                break;
-                
-            case 1: // PUBLIC - no additional MFA
-            default:
-                log.debug("L1 (PUBLIC) resource - no MFA required");
-                // factors reste vide
-                break;
+        return mfaPolicy.getRequiredFactors(requiredLevel);
+    }
+
+    /**
+     * Facteurs requis pour un niveau, repli OTP appliqué pour cet utilisateur.
+     *
+     * @param user L'utilisateur (OTP activé ou non)
+     * @param requiredLevel Le niveau de priorité de la ressource
+     * @return Set des facteurs MFA requis, non modifiable
+     */
+    public Set<String> getRequiredFactorsForLevel(User user, int requiredLevel) {
+        return Set.copyOf(applyFaceFallback(user, requiredLevel, getRequiredFactorsForLevel(requiredLevel)));
+    }
+
+    /**
+     * Remplace FACE par OTP si face-service est indisponible (circuit ouvert) et que la politique le permet.
+     *
+     * @return Les facteurs, inchangés si aucun repli ne s'applique
+     */
+    public Collection<String> applyFaceFallback(User user, int level, Collection<String> factors) {
+        if (!factors.contains("FACE") || !faceFallbackEnabled || !faceServiceCircuitBreaker.isOpen()) {
+            return factors;
         }
-        
-        return factors;
+        if (level > faceFallbackMaxLevel || !Boolean.TRUE.equals(user.getOtpEnabled())) {
+            log.warn("⚠️ Face service unavailable, no OTP fallback for user {} (level {})", user.getEmail(), level);
+            return factors;
+        }
+
+        Set<String> substituted = new LinkedHashSet<>(factors);
+        substituted.remove("FACE");
+        substituted.add("OTP");
+        log.warn("⚠️ Face service unavailable, OTP required instead of FACE for user {} (level {})",
+                user.getEmail(), level);
+        return substituted;
     }
 
     /**
@@ -104,6 +127,8 @@ public class DecisionEngine {
             if (!requiredFactors.contains("FACE")) requiredFactors.add("FACE");
         }
 
+        requiredFactors = new ArrayList<>(applyFaceFallback(user, level.getPriorityLevel(), requiredFactors));
+
         log.info("Required factors for user {}: {}", user.getEmail(), requiredFactors);
         return requiredFactors;
     }
@@ -0,0 +1,103 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comptage des échecs de login.
+ *
+ * - Par défaut : UPDATE atomique "failed_login_attempts = failed_login_attempts + 1" (pas de lecture préalable)
+ * - Mode write-behind (optionnel) : compteurs en mémoire par email, vidés en base par lot à intervalle fixe.
+ *   La valeur en base (utilisée par le calcul de risque) peut alors avoir un intervalle de retard.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FailedLoginService {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.failed-logins.write-behind:false}")
+    private boolean writeBehind;
+
+    @Value("${security.failed-logins.max-pending:10000}")
+    private int maxPending;
+
+    /**
+     * Compteurs en attente d'écriture. Incrément et suppression passent par compute/computeIfPresent :
+     * le verrou par segment de la map garantit qu'aucun incrément n'est perdu.
+     */
+    private final Map<String, AtomicLong> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+
+    /**
+     * Enregistre un échec de login pour cet email (sans effet si l'email est inconnu).
+     */
+    public void recordFailure(String email) {
+        recorded.increment();
+        if (!writeBehind || (pending.size() >= maxPending && !pending.containsKey(email))) {
+            // Mode direct, ou trop d'emails distincts en attente (ex: spray d'emails inconnus)
+            userRepository.incrementFailedLoginAttempts(email, 1);
+            return;
+        }
+        pending.compute(email, (key, counter) -> {
+            AtomicLong value = counter != null ? counter : new AtomicLong();
+            value.incrementAndGet();
+            return value;
+        });
+    }
+
+    /**
+     * Vide les compteurs en attente dans une seule transaction.
+     */
+    @Scheduled(fixedDelayString = "${security.failed-logins.flush-interval-ms:1000}")
+    @Transactional
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int rows = 0;
+        for (Map.Entry<String, AtomicLong> entry : pending.entrySet()) {
+            long delta = entry.getValue().getAndSet(0);
+            // Retirée seulement si aucun incrément n'est arrivé entre-temps
+            pending.computeIfPresent(entry.getKey(), (key, counter) -> counter.get() == 0 ? null : counter);
+            if (delta > 0) {
+                rows += userRepository.incrementFailedLoginAttempts(entry.getKey(), delta);
+            }
+        }
+        flushedRows.add(rows);
+        log.debug("Flushed failed login counters: {} row(s) updated", rows);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Statistiques du comptage des échecs.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", writeBehind);
+        stats.put("recorded", recorded.sum());
+        stats.put("pending", pending.size());
+        stats.put("flushedRows", flushedRows.sum());
+        return stats;
+    }
+}
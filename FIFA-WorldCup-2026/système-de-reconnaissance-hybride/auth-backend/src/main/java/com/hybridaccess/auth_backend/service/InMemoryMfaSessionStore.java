@@ -0,0 +1,80 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.entity.MfaSession;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessions MFA en mémoire locale (aucun aller-retour base de données).
+ *
+ * - Copy-on-write : la map ne contient que des copies, jamais exposées ; chaque mise à jour
+ *   remplace la valeur via computeIfPresent (atomique par clé)
+ * - TTL : expiration paresseuse à la lecture + purge planifiée par MfaSessionService
+ */
+@Component
+@ConditionalOnProperty(name = "mfa.session-store", havingValue = "memory")
+public class InMemoryMfaSessionStore implements MfaSessionStore {
+
+    private final Map<UUID, MfaSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public MfaSession save(MfaSession session) {
+        MfaSession stored = session.copy();
+        if (stored.getSessionId() == null) {
+            stored.setSessionId(UUID.randomUUID());
+        }
+        if (stored.getCreatedAt() == null) {
+            stored.setCreatedAt(LocalDateTime.now());
+        }
+        if (stored.getExpiresAt() == null) {
+            stored.setExpiresAt(stored.getCreatedAt().plusMinutes(10));
+        }
+        sessions.put(stored.getSessionId(), stored);
+        return stored.copy();
+    }
+
+    @Override
+    public Optional<MfaSession> findById(UUID sessionId) {
+        MfaSession stored = sessions.get(sessionId);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        if (!stored.isValid()) {
+            sessions.remove(sessionId, stored);
+            return Optional.empty();
+        }
+        return Optional.of(stored.copy());
+    }
+
+    @Override
+    public Optional<MfaSession> addVerifiedFactors(UUID sessionId, Collection<String> factors) {
+        MfaSession updated = sessions.computeIfPresent(sessionId, (id, current) -> {
+            if (!current.isValid()) {
+                return null;
+            }
+            MfaSession next = current.copy();
+            next.addVerifiedFactors(factors);
+            return next;
+        });
+        return Optional.ofNullable(updated).map(MfaSession::copy);
+    }
+
+    @Override
+    public void deleteById(UUID sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime now) {
+        int before = sessions.size();
+        sessions.values().removeIf(session -> !now.isBefore(session.getExpiresAt()));
+        return before - sessions.size();
+    }
+}
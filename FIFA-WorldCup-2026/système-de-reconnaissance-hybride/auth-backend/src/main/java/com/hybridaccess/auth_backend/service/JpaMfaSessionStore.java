@@ -0,0 +1,76 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.entity.MfaFactor;
+import com.hybridaccess.auth_backend.entity.MfaSession;
+import com.hybridaccess.auth_backend.repository.MfaSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Sessions MFA persistées via {@link MfaSessionRepository} (comportement historique).
+ */
+@Component
+@ConditionalOnProperty(name = "mfa.session-store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaMfaSessionStore implements MfaSessionStore {
+
+    private final MfaSessionRepository mfaSessionRepository;
+
+    @Value("${mfa.session-cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    @Value("${mfa.session-cleanup.max-batches:100}")
+    private int cleanupMaxBatches;
+
+    @Override
+    @Transactional
+    public MfaSession save(MfaSession session) {
+        return mfaSessionRepository.save(session);
+    }
+
+    @Override
+    public Optional<MfaSession> findById(UUID sessionId) {
+        return mfaSessionRepository.findById(sessionId).filter(MfaSession::isValid);
+    }
+
+    /**
+     * UPDATE atomique (OR sur le masque) puis relecture : pas de lecture-modification-écriture,
+     * deux facteurs vérifiés en parallèle sont tous deux conservés.
+     */
+    @Override
+    public Optional<MfaSession> addVerifiedFactors(UUID sessionId, Collection<String> factors) {
+        int updated = mfaSessionRepository.addVerifiedFactors(sessionId, MfaFactor.maskOf(factors), LocalDateTime.now());
+        return updated == 0 ? Optional.empty() : findById(sessionId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(UUID sessionId) {
+        mfaSessionRepository.deleteById(sessionId);
+    }
+
+    /**
+     * Suppression par lots : un DELETE ensembliste par lot, chacun dans sa propre transaction,
+     * pour ne jamais verrouiller la table longtemps.
+     */
+    @Override
+    public int deleteExpired(LocalDateTime now) {
+        int total = 0;
+        for (int batch = 0; batch < cleanupMaxBatches; batch++) {
+            int deleted = mfaSessionRepository.deleteExpiredBatch(now, cleanupBatchSize);
+            total += deleted;
+            if (deleted < cleanupBatchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
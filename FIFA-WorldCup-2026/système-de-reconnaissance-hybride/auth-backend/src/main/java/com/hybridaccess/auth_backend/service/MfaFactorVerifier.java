@@ -0,0 +1,150 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.client.FaceImageNormalizer;
+import com.hybridaccess.auth_backend.client.FaceServiceClient;
+import com.hybridaccess.auth_backend.dto.face.FaceVerifyResponse;
+import com.hybridaccess.auth_backend.entity.MfaFactor;
+import com.hybridaccess.auth_backend.entity.MfaSession;
+import com.hybridaccess.auth_backend.exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vérification des facteurs MFA d'une requête, sans bloquer de thread pendant l'appel face-service.
+ *
+ * - FACE est lancé en premier via le client asynchrone (aucun thread n'attend la réponse),
+ *   image normalisée (FaceImageNormalizer) puis envoyée en binaire (ni Base64 ni JSON)
+ * - OTP (calcul local) est vérifié pendant ce temps sur le thread de la requête ;
+ *   un code faux annule l'appel FACE en cours au lieu d'attendre sa réponse
+ * - L'appel FACE (normalisation comprise) est borné par mfa.face-verification.timeout-ms
+ * - face-service indisponible (circuit ouvert, bulkhead plein) : ServiceUnavailableException
+ *   propagée (503), distincte d'un visage non reconnu
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MfaFactorVerifier {
+
+    private final TotpService totpService;
+    private final FaceServiceClient faceServiceClient;
+    private final FaceImageNormalizer faceImageNormalizer;
+
+    @Value("${mfa.face-verification.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * Vérifie tous les facteurs demandés.
+     *
+     * @param session La session MFA (utilisateur et email)
+     * @param factors Facteurs à vérifier
+     * @param otpCode Code OTP (si OTP demandé)
+     * @param image Image du visage, octets JPEG/PNG (si FACE demandé)
+     * @return Future du premier facteur en échec, ou Optional.empty() si tous sont vérifiés ;
+     *         en échec avec ServiceUnavailableException si face-service refuse l'appel
+     */
+    public CompletableFuture<Optional<MfaFactor>> verify(MfaSession session, Set<MfaFactor> factors,
+                                                         String otpCode, byte[] image) {
+        CompletableFuture<FaceVerifyResponse> faceCall = null;
+        if (factors.contains(MfaFactor.FACE) && image != null && image.length > 0) {
+            faceCall = verifyFace(session.getEmail(), image);
+        }
+
+        if (factors.contains(MfaFactor.OTP) && !verifyOtp(session, otpCode)) {
+            if (faceCall != null) {
+                faceCall.cancel(true);
+            }
+            return CompletableFuture.completedFuture(Optional.of(MfaFactor.OTP));
+        }
+
+        if (!factors.contains(MfaFactor.FACE)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (faceCall == null) {
+            log.warn("❌ No image provided for FACE verification");
+            return CompletableFuture.completedFuture(Optional.of(MfaFactor.FACE));
+        }
+
+        return faceCall
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((response, error) -> faceResult(session, response, error)
+                        ? Optional.<MfaFactor>empty()
+                        : Optional.of(MfaFactor.FACE));
+    }
+
+    /**
+     * Normalizes the image, then calls face-service. Completing the returned future early
+     * (cancellation, timeout) skips the normalization if not started and aborts the HTTP exchange
+     */
+    private CompletableFuture<FaceVerifyResponse> verifyFace(String email, byte[] image) {
+        CompletableFuture<FaceVerifyResponse> result = new CompletableFuture<>();
+        CompletableFuture<byte[]> normalized = faceImageNormalizer.normalize(image);
+        normalized.thenAccept(bytes -> {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<FaceVerifyResponse> call = faceServiceClient.verifyFaceAsync(email, bytes);
+            call.whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, error) -> {
+                if (error != null) {
+                    call.completeExceptionally(error);
+                }
+            });
+        });
+        result.whenComplete((response, error) -> {
+            if (error != null) {
+                normalized.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Verifies OTP factor (secret served from the TotpService cache, no database lookup)
+     */
+    private boolean verifyOtp(MfaSession session, String otpCode) {
+        if (otpCode == null || otpCode.isBlank()) {
+            return false;
+        }
+        return totpService.verifyForUserWithTolerance(session.getUserId(), otpCode.trim());
+    }
+
+    /**
+     * Interprets the FACE call outcome for the session's user (identified by email)
+     */
+    private boolean faceResult(MfaSession session, FaceVerifyResponse response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ServiceUnavailableException unavailable) {
+                log.warn("⚠️ Face verification not attempted for user {}: {}", session.getEmail(), cause.getMessage());
+                throw unavailable;
+            }
+            if (cause instanceof TimeoutException) {
+                log.warn("❌ Face verification timed out after {} ms", timeoutMs);
+            } else if (!(cause instanceof CancellationException)) {
+                log.error("❌ Face verification failed for user {}: {}", session.getEmail(), cause.getMessage());
+            }
+            return false;
+        }
+
+        if (Boolean.TRUE.equals(response.getAutoEnrolled())) {
+            log.info("🎯 First face enrolled automatically for user: {}", session.getEmail());
+        }
+        return response.isMatch();
+    }
+}
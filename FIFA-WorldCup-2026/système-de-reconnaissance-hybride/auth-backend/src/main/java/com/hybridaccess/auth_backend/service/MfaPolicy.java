@@ -0,0 +1,161 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.entity.AccessLevel;
+import com.hybridaccess.auth_backend.entity.MfaFactor;
+import com.hybridaccess.auth_backend.repository.AccessLevelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Politique MFA par niveau, compilée depuis les colonnes biometric_required / otp_required
+ * de la table access_levels.
+ *
+ * - Table immuable indexée par priority_level : la décision est une lecture de tableau,
+ *   sans allocation (les ensembles de facteurs sont partagés et non modifiables)
+ * - Recompilée au démarrage, après chaque modification via {@link AccessLevelServiceImpl}
+ *   et périodiquement (modifications faites sur une autre instance ou directement en base)
+ * - Avant le premier chargement : règles historiques (L2 FACE, L3 OTP, L4 FACE + OTP)
+ * - Niveau absent de la table : aucun facteur supplémentaire
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MfaPolicy {
+
+    /**
+     * Borne de priority_level acceptée (la table est un tableau dense)
+     */
+    private static final int MAX_LEVEL = 64;
+
+    private final AccessLevelRepository accessLevelRepository;
+
+    private final LongAdder reloads = new LongAdder();
+
+    private volatile Table table = Table.compile(List.of(
+            level(2, true, false),
+            level(3, false, true),
+            level(4, true, true)));
+
+    /**
+     * Facteurs requis pour un niveau (ensemble partagé, non modifiable).
+     */
+    public Set<String> getRequiredFactors(int level) {
+        Table current = table;
+        return level >= 0 && level < current.factors.length ? current.factors[level] : Set.of();
+    }
+
+    /**
+     * Facteurs requis pour un niveau, en masque {@link MfaFactor}.
+     */
+    public int getRequiredMask(int level) {
+        Table current = table;
+        return level >= 0 && level < current.masks.length ? current.masks[level] : 0;
+    }
+
+    /**
+     * Recompile la table depuis access_levels.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${mfa.policy.refresh-interval-ms:60000}",
+            fixedDelayString = "${mfa.policy.refresh-interval-ms:60000}")
+    public void refresh() {
+        Table compiled = Table.compile(accessLevelRepository.findAll());
+        if (!compiled.equals(table)) {
+            log.info("MFA policy compiled: {}", compiled.describe());
+        }
+        table = compiled;
+        reloads.increment();
+    }
+
+    /**
+     * Statistiques (facteurs par niveau, nombre de recompilations).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("factorsByLevel", table.describe());
+        stats.put("reloads", reloads.sum());
+        return stats;
+    }
+
+    private static AccessLevel level(int priority, boolean biometric, boolean otp) {
+        return AccessLevel.builder()
+                .priorityLevel(priority)
+                .biometricRequired(biometric)
+                .otpRequired(otp)
+                .build();
+    }
+
+    /**
+     * Table compilée : masque et noms de facteurs par priority_level.
+     */
+    private record Table(int[] masks, Set<String>[] factors) {
+
+        @SuppressWarnings("unchecked")
+        static Table compile(List<AccessLevel> levels) {
+            int size = 0;
+            for (AccessLevel level : levels) {
+                Integer priority = level.getPriorityLevel();
+                if (priority != null && priority >= 0 && priority <= MAX_LEVEL) {
+                    size = Math.max(size, priority + 1);
+                } else {
+                    log.warn("Access level {} ignored by MFA policy: priority {} out of range",
+                            level.getName(), priority);
+                }
+            }
+
+            int[] masks = new int[size];
+            for (AccessLevel level : levels) {
+                Integer priority = level.getPriorityLevel();
+                if (priority == null || priority < 0 || priority > MAX_LEVEL) {
+                    continue;
+                }
+                if (Boolean.TRUE.equals(level.getBiometricRequired())) {
+                    masks[priority] |= MfaFactor.FACE.bit();
+                }
+                if (Boolean.TRUE.equals(level.getOtpRequired())) {
+                    masks[priority] |= MfaFactor.OTP.bit();
+                }
+            }
+
+            Set<String>[] factors = new Set[size];
+            for (int i = 0; i < size; i++) {
+                factors[i] = MfaFactor.namesOf(masks[i]);
+            }
+            return new Table(masks, factors);
+        }
+
+        /**
+         * Niveaux exigeant au moins un facteur
+         */
+        Map<Integer, Set<String>> describe() {
+            Map<Integer, Set<String>> levels = new LinkedHashMap<>();
+            for (int i = 0; i < factors.length; i++) {
+                if (masks[i] != 0) {
+                    levels.put(i, factors[i]);
+                }
+            }
+            return levels;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Table other && Arrays.equals(masks, other.masks);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(masks);
+        }
+    }
+}
@@ -2,26 +2,57 @@ package com.hybridaccess.auth_backend.service;
 
 import com.hybridaccess.auth_backend.entity.MfaSession;
 import com.hybridaccess.auth_backend.entity.User;
-import com.hybridaccess.auth_backend.repository.MfaSessionRepository;
+import com.hybridaccess.auth_backend.exception.UnauthorizedException;
+import com.hybridaccess.auth_backend.security.MfaSessionTokenCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for managing MFA sessions
+ * Storage is pluggable via {@link MfaSessionStore} (JPA or in-memory, see mfa.session-store)
+ *
+ * With mfa.session-mode=token, no session is stored: the state travels in an encrypted
+ * token ({@link MfaSessionTokenCodec}) re-issued after each verified factor. A token that
+ * has been used to verify a factor is remembered until its expiry (local replay guard).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MfaSessionService {
 
-    private final MfaSessionRepository mfaSessionRepository;
+    private final MfaSessionStore mfaSessionStore;
     private final DecisionEngine decisionEngine;
+    private final MfaSessionTokenCodec mfaSessionTokenCodec;
+
+    @Value("${mfa.session-mode:store}")
+    private String sessionMode;
+
+    @Value("${mfa.session-token.replay-guard-max-size:100000}")
+    private int replayGuardMaxSize;
+
+    /**
+     * Tokens already used to verify a factor (token id -> session expiry)
+     */
+    private final Map<String, LocalDateTime> consumedTokens = new ConcurrentHashMap<>();
+    private final LongAdder replaysRejected = new LongAdder();
+
+    private final LongAdder cleanupRuns = new LongAdder();
+    private final LongAdder purgedSessions = new LongAdder();
+    private volatile int lastPurgeRows;
+    private volatile long lastPurgeDurationMs;
 
     /**
      * Creates a new MFA session for a user accessing a resource
@@ -30,20 +61,32 @@ public class MfaSessionService {
      * @param resourceLevel The priority level of the resource (1-4)
      * @return The created MFA session
      */
-    @Transactional
     public MfaSession createSession(User user, int resourceLevel) {
         // Determine required factors based on resource level
-        Set<String> requiredFactors = decisionEngine.getRequiredFactorsForLevel(resourceLevel);
+        return createSession(user, resourceLevel, decisionEngine.getRequiredFactorsForLevel(user, resourceLevel));
+    }
 
+    /**
+     * Creates a new MFA session with an explicit set of required factors (e.g., from risk assessment at login)
+     */
+    public MfaSession createSession(User user, int resourceLevel, Collection<String> requiredFactors) {
         MfaSession session = new MfaSession();
         session.setUserId(user.getId());
         session.setEmail(user.getEmail());
         session.setRequiredLevel(resourceLevel);
-        session.setRequiredFactors(requiredFactors);
+        session.setRequiredFactors(Set.copyOf(requiredFactors));
         session.setExpiresAt(LocalDateTime.now().plusMinutes(10));
 
-        MfaSession saved = mfaSessionRepository.save(session);
-        
+        MfaSession saved;
+        if (isTokenMode()) {
+            // Nothing stored: the state is carried by the encrypted token
+            session.setSessionId(UUID.randomUUID());
+            session.setCreatedAt(LocalDateTime.now());
+            saved = session;
+        } else {
+            saved = mfaSessionStore.save(session);
+        }
+
         log.info("✅ Created MFA session {} for user {} accessing L{} resource. Required factors: {}",
                 saved.getSessionId(), user.getEmail(), resourceLevel, requiredFactors);
 
@@ -51,33 +94,96 @@ public class MfaSessionService {
     }
 
     /**
-     * Finds an MFA session by ID
+     * @return true when MFA state is carried by encrypted tokens instead of the store
+     */
+    public boolean isTokenMode() {
+        return "token".equalsIgnoreCase(sessionMode);
+    }
+
+    /**
+     * Encrypted token carrying the session state (token mode only)
+     *
+     * @return The token to return to the client, or null in store mode
+     */
+    public String issueToken(MfaSession session) {
+        return isTokenMode() ? mfaSessionTokenCodec.encode(session) : null;
+    }
+
+    /**
+     * Resolves the current session from the request: the encrypted token in token mode, the ID otherwise
+     */
+    public MfaSession resolve(UUID sessionId, String sessionToken) {
+        if (!isTokenMode()) {
+            if (sessionId == null) {
+                throw new UnauthorizedException("MFA session ID missing");
+            }
+            return findById(sessionId);
+        }
+
+        MfaSession session = mfaSessionTokenCodec.decode(sessionToken)
+                .filter(MfaSession::isValid)
+                .orElseThrow(() -> new UnauthorizedException("MFA session token invalid or expired"));
+
+        if (consumedTokens.containsKey(MfaSessionTokenCodec.tokenId(sessionToken))) {
+            replaysRejected.increment();
+            throw new UnauthorizedException("MFA session token already used");
+        }
+        return session;
+    }
+
+    /**
+     * Marks factors as verified on a resolved session, all at once
+     * In token mode, the presented token is consumed (a concurrent replay loses the race) and
+     * the returned session must be re-issued with {@link #issueToken(MfaSession)}
+     */
+    public MfaSession verifyFactors(MfaSession session, String sessionToken, Collection<String> factors) {
+        if (!isTokenMode()) {
+            return verifyFactors(session.getSessionId(), factors);
+        }
+
+        if (consumedTokens.size() >= replayGuardMaxSize) {
+            purgeConsumedTokens(LocalDateTime.now());
+            if (consumedTokens.size() >= replayGuardMaxSize) {
+                log.warn("⚠️ MFA replay guard full ({} tokens), rejecting verification", consumedTokens.size());
+                throw new UnauthorizedException("MFA temporarily unavailable");
+            }
+        }
+
+        if (consumedTokens.putIfAbsent(MfaSessionTokenCodec.tokenId(sessionToken), session.getExpiresAt()) != null) {
+            replaysRejected.increment();
+            throw new UnauthorizedException("MFA session token already used");
+        }
+
+        MfaSession updated = session.copy();
+        updated.addVerifiedFactors(factors);
+
+        log.info("✅ Factors {} verified for session {}. Verified: {}, Required: {}",
+                factors, updated.getSessionId(), updated.getVerifiedFactors(), updated.getRequiredFactors());
+
+        return updated;
+    }
+
+    /**
+     * Finds a non-expired MFA session by ID
      */
     public MfaSession findById(UUID sessionId) {
-        return mfaSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("MFA session not found or expired: " + sessionId));
+        return mfaSessionStore.findById(sessionId)
+                .orElseThrow(() -> new UnauthorizedException("MFA session not found or expired: " + sessionId));
     }
 
     /**
-     * Marks a factor as verified in the session
+     * Marks factors as verified in the session (single atomic update)
      * 
      * @param sessionId The session ID
-     * @param factor The factor to mark as verified (e.g., "OTP", "FACE")
+     * @param factors The factors to mark as verified (e.g., "OTP", "FACE")
      * @return The updated session
      */
-    @Transactional
-    public MfaSession verifyFactor(UUID sessionId, String factor) {
-        MfaSession session = findById(sessionId);
+    public MfaSession verifyFactors(UUID sessionId, Collection<String> factors) {
+        MfaSession updated = mfaSessionStore.addVerifiedFactors(sessionId, factors)
+                .orElseThrow(() -> new UnauthorizedException("MFA session expired"));
 
-        if (!session.isValid()) {
-            throw new RuntimeException("MFA session expired");
-        }
-
-        session.addVerifiedFactor(factor);
-        MfaSession updated = mfaSessionRepository.save(session);
-
-        log.info("✅ Factor {} verified for session {}. Verified: {}, Required: {}",
-                factor, sessionId, updated.getVerifiedFactors(), updated.getRequiredFactors());
+        log.info("✅ Factors {} verified for session {}. Verified: {}, Required: {}",
+                factors, sessionId, updated.getVerifiedFactors(), updated.getRequiredFactors());
 
         return updated;
     }
@@ -93,21 +199,54 @@ public class MfaSessionService {
     /**
      * Deletes an MFA session after JWT is issued
      */
-    @Transactional
     public void deleteSession(UUID sessionId) {
-        mfaSessionRepository.deleteById(sessionId);
+        if (isTokenMode()) {
+            // Nothing stored; the last token was consumed when its factor was verified
+            return;
+        }
+        mfaSessionStore.deleteById(sessionId);
         log.info("🗑️ Deleted MFA session {}", sessionId);
     }
 
     /**
-     * Cleanup expired sessions (can be scheduled)
+     * Cleanup expired sessions (expired sessions are already rejected on read)
      */
-    @Transactional
+    @Scheduled(fixedDelayString = "${mfa.session-cleanup.interval-ms:60000}")
     public void cleanupExpiredSessions() {
-        var expired = mfaSessionRepository.findByExpiresAtBefore(LocalDateTime.now());
-        if (!expired.isEmpty()) {
-            mfaSessionRepository.deleteAll(expired);
-            log.info("🗑️ Cleaned up {} expired MFA sessions", expired.size());
+        LocalDateTime now = LocalDateTime.now();
+        purgeConsumedTokens(now);
+
+        long start = System.nanoTime();
+        int deleted = mfaSessionStore.deleteExpired(now);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        cleanupRuns.increment();
+        purgedSessions.add(deleted);
+        lastPurgeRows = deleted;
+        lastPurgeDurationMs = durationMs;
+
+        if (deleted > 0) {
+            log.info("🗑️ Cleaned up {} expired MFA sessions in {} ms", deleted, durationMs);
         }
     }
+
+    /**
+     * Cleanup statistics (runs, purged rows, last run)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", isTokenMode() ? "token" : "store");
+        stats.put("store", mfaSessionStore.getClass().getSimpleName());
+        stats.put("consumedTokens", consumedTokens.size());
+        stats.put("replaysRejected", replaysRejected.sum());
+        stats.put("cleanupRuns", cleanupRuns.sum());
+        stats.put("purgedTotal", purgedSessions.sum());
+        stats.put("lastPurgeRows", lastPurgeRows);
+        stats.put("lastPurgeDurationMs", lastPurgeDurationMs);
+        return stats;
+    }
+
+    private void purgeConsumedTokens(LocalDateTime now) {
+        consumedTokens.values().removeIf(expiresAt -> !now.isBefore(expiresAt));
+    }
 }
@@ -0,0 +1,45 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.entity.MfaSession;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stockage des sessions MFA.
+ *
+ * Implémentations (propriété mfa.session-store) :
+ * - jpa    : table mfa_sessions (partagée entre instances, valeur par défaut)
+ * - memory : map concurrente locale, TTL appliqué en mémoire (nécessite une affinité de session
+ *            si plusieurs instances sont déployées)
+ */
+public interface MfaSessionStore {
+
+    /**
+     * Enregistre une nouvelle session (ID, createdAt et expiresAt renseignés si absents).
+     */
+    MfaSession save(MfaSession session);
+
+    /**
+     * @return La session si elle existe et n'est pas expirée
+     */
+    Optional<MfaSession> findById(UUID sessionId);
+
+    /**
+     * Ajoute atomiquement des facteurs vérifiés à une session non expirée (une seule mise à jour).
+     *
+     * @return La session mise à jour, ou Optional.empty() si absente ou expirée
+     */
+    Optional<MfaSession> addVerifiedFactors(UUID sessionId, Collection<String> factors);
+
+    void deleteById(UUID sessionId);
+
+    /**
+     * Supprime les sessions expirées.
+     *
+     * @return Nombre de sessions supprimées
+     */
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,156 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.entity.MfaFactor;
+import com.hybridaccess.auth_backend.entity.RefreshToken;
+import com.hybridaccess.auth_backend.entity.User;
+import com.hybridaccess.auth_backend.exception.UnauthorizedException;
+import com.hybridaccess.auth_backend.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service de gestion des refresh tokens.
+ *
+ * - Token brut : 256 bits aléatoires (base64url), renvoyé une seule fois au client
+ * - Stockage : hash SHA-256 uniquement (le token est à haute entropie, un hash lent est inutile)
+ * - Rotation : chaque échange consomme le token et en émet un nouveau dans la même famille
+ * - Réutilisation d'un token consommé ou révoqué : toute la famille est révoquée
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpirationMs;
+
+    /**
+     * Émet un refresh token pour une nouvelle session (nouvelle famille).
+     *
+     * @param user L'utilisateur authentifié
+     * @return Le token brut à transmettre au client
+     */
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString(), 0);
+    }
+
+    /**
+     * Émet un refresh token pour une session ouverte après MFA (nouvelle famille) :
+     * les facteurs vérifiés sont conservés à chaque rotation.
+     *
+     * @param user L'utilisateur authentifié
+     * @param mfaFactors Les facteurs MFA vérifiés (e.g., ["FACE", "OTP"])
+     * @return Le token brut à transmettre au client
+     */
+    public String issue(User user, Set<String> mfaFactors) {
+        return issue(user, UUID.randomUUID().toString(), MfaFactor.maskOf(mfaFactors));
+    }
+
+    /**
+     * Échange un refresh token contre un nouveau (rotation).
+     *
+     * @param rawToken Le token brut présenté par le client
+     * @return Le nouveau token brut, l'utilisateur associé et les facteurs MFA de la famille
+     * @throws UnauthorizedException si le token est inconnu, expiré, révoqué ou déjà utilisé
+     */
+    public Rotation rotate(String rawToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new UnauthorizedException("Refresh token invalide"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (stored.getRevokedAt() != null || refreshTokenRepository.markUsed(stored.getId(), now) == 0) {
+            // Token déjà échangé ou révoqué : vol probable, on coupe toute la famille
+            int revoked = refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for user {} - {} token(s) revoked in family {}",
+                    stored.getUser().getEmail(), revoked, stored.getFamilyId());
+            throw new UnauthorizedException("Refresh token déjà utilisé");
+        }
+
+        if (stored.getExpiresAt().isBefore(now)) {
+            throw new UnauthorizedException("Refresh token expiré");
+        }
+
+        User user = stored.getUser();
+        if (!Boolean.TRUE.equals(user.getActive())) {
+            refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+            throw new UnauthorizedException("Compte désactivé");
+        }
+
+        return new Rotation(issue(user, stored.getFamilyId(), stored.getMfaFactorsMask()), user,
+                stored.getMfaFactors());
+    }
+
+    /**
+     * Révoque la session associée à un refresh token (logout).
+     *
+     * @param rawToken Le token brut présenté par le client
+     */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken)).ifPresent(stored -> {
+            refreshTokenRepository.revokeFamily(stored.getFamilyId(), LocalDateTime.now());
+            log.info("Refresh token family {} revoked for user {}", stored.getFamilyId(), stored.getUser().getEmail());
+        });
+    }
+
+    /**
+     * Purge des refresh tokens expirés (toutes les heures).
+     */
+    @Scheduled(cron = "${jwt.refresh-cleanup-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("🗑️ Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(User user, String familyId, int mfaFactorsMask) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = BASE64_URL.encodeToString(bytes);
+
+        RefreshToken token = RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .mfaFactorsMask(mfaFactorsMask)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusNanos(refreshExpirationMs * 1_000_000L))
+                .build();
+        refreshTokenRepository.save(token);
+
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return BASE64_URL.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Résultat d'une rotation : nouveau token brut + utilisateur + facteurs MFA (vide si mot de passe seul).
+     */
+    public record Rotation(String refreshToken, User user, Set<String> mfaFactors) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.hybridaccess.auth_backend.service;
 
+import com.hybridaccess.auth_backend.entity.User;
+import com.hybridaccess.auth_backend.repository.UserRepository;
+import com.hybridaccess.auth_backend.security.TotpVerifier;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import com.warrenstrange.googleauth.GoogleAuthenticatorQRGenerator;
@@ -8,9 +11,25 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Service pour gérer l'authentification TOTP (Time-based One-Time Password)
  * Compatible avec Google Authenticator, Authy, etc.
+ *
+ * Point d'entrée unique pour l'OTP : génération, vérification (déléguée à {@link TotpVerifier},
+ * anti-rejeu inclus) et activation / désactivation.
+ *
+ * Fenêtres : mfa.otp.window (± 1 pas) par défaut ; mfa.otp.tolerance-window (± 2 pas) pour la
+ * vérification MFA et la confirmation de configuration, qui toléraient déjà un décalage d'horloge plus large.
+ *
+ * - Cache des secrets par utilisateur (secret décodé, ou absence d'OTP) : une vérification
+ *   ne fait aucune requête en base
+ * - Invalidé par enableOtp / disableOtp / storeSecret ; TTL en filet de sécurité pour les
+ *   modifications faites par une autre instance
  */
 @Service
 @RequiredArgsConstructor
@@ -18,13 +37,32 @@ import org.springframework.stereotype.Service;
 public class TotpService {
 
     private final GoogleAuthenticator googleAuthenticator = new GoogleAuthenticator();
+    private final TotpVerifier totpVerifier;
+    private final UserRepository userRepository;
 
     @Value("${app.name:HybridAccessSystem}")
     private String appName;
 
+    @Value("${mfa.otp.window:1}")
+    private int window;
+
+    @Value("${mfa.otp.tolerance-window:2}")
+    private int toleranceWindow;
+
+    @Value("${mfa.otp.secret-cache.ttl-ms:300000}")
+    private long secretCacheTtlMs;
+
+    @Value("${mfa.otp.secret-cache.max-size:100000}")
+    private int secretCacheMaxSize;
+
+    private final Map<Long, CachedSecret> secretCache = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
     /**
      * Génère un nouveau secret TOTP pour un utilisateur
-     * 
+     *
      * @return Secret encodé en Base32
      */
     public String generateSecret() {
@@ -36,7 +74,7 @@ public class TotpService {
 
     /**
      * Génère l'URI pour le QR Code compatible avec Google Authenticator
-     * 
+     *
      * @param userEmail Email de l'utilisateur
      * @param secret Secret TOTP
      * @return URI du QR Code (otpauth://totp/...)
@@ -52,55 +90,167 @@ public class TotpService {
     }
 
     /**
-     * Valide un code OTP
-     * 
-     * @param secret Secret TOTP de l'utilisateur
+     * Valide un code OTP contre un secret explicite (configuration, avant activation)
+     *
+     * @param secret Secret TOTP
      * @param code Code à 6 chiffres saisi par l'utilisateur
      * @return true si le code est valide
      */
     public boolean validateCode(String secret, String code) {
-        try {
-            int codeInt = Integer.parseInt(code);
-            boolean isValid = googleAuthenticator.authorize(secret, codeInt);
-            
-            if (isValid) {
-                log.info("OTP code validated successfully");
-            } else {
-                log.warn("Invalid OTP code provided");
-            }
-            
-            return isValid;
-        } catch (NumberFormatException e) {
-            log.error("Invalid OTP code format: {}", code);
-            return false;
+        boolean isValid = totpVerifier.verify(secret, code, window);
+
+        if (isValid) {
+            log.info("OTP code validated successfully");
+        } else {
+            log.warn("Invalid OTP code provided");
         }
+
+        return isValid;
     }
 
     /**
      * Valide un code OTP en utilisant une fenêtre de temps plus large
-     * Utile pour gérer le décalage horaire
-     * 
+     * Utile pour gérer le décalage horaire (pas courant ± mfa.otp.tolerance-window)
+     *
      * @param secret Secret TOTP
      * @param code Code à valider
      * @return true si valide
      */
     public boolean validateCodeWithTolerance(String secret, String code) {
-        try {
-            int codeInt = Integer.parseInt(code);
-            
-            // Essaye le code actuel ± 1 fenêtre (30s avant/après)
-            for (int i = -1; i <= 1; i++) {
-                if (googleAuthenticator.authorize(secret, codeInt, System.currentTimeMillis() + (i * 30000L))) {
-                    log.info("OTP code validated with tolerance (offset: {})", i);
-                    return true;
-                }
-            }
-            
+        boolean isValid = totpVerifier.verify(secret, code, toleranceWindow);
+
+        if (isValid) {
+            log.info("OTP code validated with tolerance");
+        } else {
             log.warn("Invalid OTP code (even with tolerance)");
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Valide un code OTP pour un utilisateur dont l'OTP est activé (secret en cache)
+     *
+     * @param userId ID de l'utilisateur
+     * @param code Code à 6 chiffres saisi
+     * @return true si l'OTP est activé et le code valide
+     */
+    public boolean verifyForUser(Long userId, String code) {
+        return verifyForUser(userId, code, window);
+    }
+
+    /**
+     * Valide un code OTP pour un utilisateur, pas courant ± mfa.otp.tolerance-window (vérification MFA)
+     *
+     * @param userId ID de l'utilisateur
+     * @param code Code à 6 chiffres saisi
+     * @return true si l'OTP est activé et le code valide
+     */
+    public boolean verifyForUserWithTolerance(Long userId, String code) {
+        return verifyForUser(userId, code, toleranceWindow);
+    }
+
+    private boolean verifyForUser(Long userId, String code, int window) {
+        TotpVerifier.Secret secret = getSecret(userId);
+        if (secret == null) {
+            log.warn("❌ OTP not enabled for user {}", userId);
             return false;
-        } catch (NumberFormatException e) {
-            log.error("Invalid OTP code format: {}", code);
-            return false;
         }
+
+        boolean isValid = totpVerifier.verify(secret, code, window);
+        if (isValid) {
+            log.info("✅ OTP verified for user {}", userId);
+        } else {
+            log.warn("❌ Invalid OTP code for user {}", userId);
+        }
+        return isValid;
+    }
+
+    /**
+     * Enregistre un secret (sans activer l'OTP)
+     */
+    public void storeSecret(User user, String secret) {
+        user.setOtpSecret(secret);
+        userRepository.save(user);
+        invalidate(user.getId());
+    }
+
+    /**
+     * Active l'OTP, avec un nouveau secret si fourni (sinon le secret déjà enregistré)
+     */
+    public void enableOtp(User user, String secret) {
+        if (secret != null && !secret.isEmpty()) {
+            user.setOtpSecret(secret);
+        }
+        user.setOtpEnabled(true);
+        userRepository.save(user);
+        invalidate(user.getId());
+        log.info("OTP enabled for user: {}", user.getEmail());
+    }
+
+    /**
+     * Désactive l'OTP et supprime le secret
+     */
+    public void disableOtp(User user) {
+        user.setOtpEnabled(false);
+        user.setOtpSecret(null);
+        userRepository.save(user);
+        invalidate(user.getId());
+        log.info("OTP disabled for user: {}", user.getEmail());
+    }
+
+    /**
+     * Retire le secret d'un utilisateur du cache
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            secretCache.remove(userId);
+        }
+    }
+
+    /**
+     * Statistiques du cache de secrets
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("secretCacheSize", secretCache.size());
+        stats.put("secretCacheHits", cacheHits.sum());
+        stats.put("secretCacheMisses", cacheMisses.sum());
+        stats.putAll(totpVerifier.getStats());
+        return stats;
+    }
+
+    /**
+     * @return Le secret décodé, ou null si l'OTP n'est pas activé
+     */
+    private TotpVerifier.Secret getSecret(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedSecret cached = secretCache.get(userId);
+        if (cached != null && now - cached.loadedAt() < secretCacheTtlMs) {
+            cacheHits.increment();
+            return cached.secret();
+        }
+
+        cacheMisses.increment();
+        TotpVerifier.Secret secret = userRepository.findById(userId)
+                .filter(user -> Boolean.TRUE.equals(user.getOtpEnabled()))
+                .map(User::getOtpSecret)
+                .filter(s -> !s.isBlank())
+                .map(TotpVerifier.Secret::of)
+                .orElse(null);
+
+        if (secretCache.size() >= secretCacheMaxSize) {
+            secretCache.values().removeIf(entry -> now - entry.loadedAt() >= secretCacheTtlMs);
+        }
+        if (secretCache.size() < secretCacheMaxSize) {
+            secretCache.put(userId, new CachedSecret(secret, now));
+        }
+        return secret;
+    }
+
+    /**
+     * Entrée du cache : secret décodé (null = OTP non activé) et date de chargement
+     */
+    private record CachedSecret(TotpVerifier.Secret secret, long loadedAt) {
     }
 }
@@ -9,6 +9,7 @@ import com.hybridaccess.auth_backend.exception.BusinessException;
 import com.hybridaccess.auth_backend.exception.ResourceNotFoundException;
 import com.hybridaccess.auth_backend.repository.AccessLevelRepository;
 import com.hybridaccess.auth_backend.repository.UserRepository;
+import com.hybridaccess.auth_backend.security.TokenVersionRegistry;
 import com.hybridaccess.auth_backend.util.MapperUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,6 +31,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final AccessLevelRepository accessLevelRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Override
     public UserReadDTO createUser(UserCreateDTO userCreateDTO) {
@@ -114,10 +116,17 @@ public class UserServiceImpl implements UserService {
         if (userUpdateDTO.getAccessLevelId() != null) {
             AccessLevel accessLevel = accessLevelRepository.findById(userUpdateDTO.getAccessLevelId())
                     .orElseThrow(() -> new ResourceNotFoundException("AccessLevel", "id", userUpdateDTO.getAccessLevelId()));
+            if (!accessLevel.getId().equals(user.getAccessLevel().getId())) {
+                // Les claims de niveau des tokens existants deviennent obsolètes
+                tokenVersionRegistry.bump(user);
+            }
             user.setAccessLevel(accessLevel);
         }
 
         if (userUpdateDTO.getActive() != null) {
+            if (!userUpdateDTO.getActive() && Boolean.TRUE.equals(user.getActive())) {
+                tokenVersionRegistry.bump(user);
+            }
             user.setActive(userUpdateDTO.getActive());
         }
 
@@ -131,6 +140,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         user.setActive(false);
+        tokenVersionRegistry.bump(user);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
     }
@@ -141,5 +151,6 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("User", "id", id);
         }
         userRepository.deleteById(id);
+        tokenVersionRegistry.revokeAll(id);
     }
 }
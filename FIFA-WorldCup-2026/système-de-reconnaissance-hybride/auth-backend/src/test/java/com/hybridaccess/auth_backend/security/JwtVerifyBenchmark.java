@@ -0,0 +1,90 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.hybridaccess.auth_backend.entity.AccessLevel;
+import com.hybridaccess.auth_backend.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérification d'un token par requête (HS256) :
+ * - legacyValidateThenGetUsername : ancien chemin du filtre, validateToken() puis getUsernameFromToken(),
+ *   clé dérivée et parser construit à chaque appel, signature vérifiée deux fois
+ * - verifyToken : JwtTokenProvider.verifyToken(), clé et parser construits au démarrage, une seule passe
+ *
+ * Lancement : mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   puis java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main JwtVerifyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        provider = new JwtTokenProvider(Mockito.mock(JwtKeyManager.class));
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", 900_000L);
+        provider.init();
+
+        AccessLevel level = AccessLevel.builder().name("CONFIDENTIEL").priorityLevel(2).build();
+        User user = User.builder().id(42L).email("bench@hybridaccess.com").accessLevel(level).build();
+        token = provider.generateTokenFromUsername(user.getEmail(), user);
+    }
+
+    @Benchmark
+    public String legacyValidateThenGetUsername() {
+        return legacyValidateToken(token) ? legacyGetUsernameFromToken(token) : null;
+    }
+
+    @Benchmark
+    public String verifyToken() {
+        return provider.verifyToken(token).map(VerifiedToken::subject).orElse(null);
+    }
+
+    /**
+     * Copie de l'ancien JwtTokenProvider.validateToken()
+     */
+    private static boolean legacyValidateToken(String token) {
+        try {
+            SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copie de l'ancien JwtTokenProvider.getUsernameFromToken()
+     */
+    private static String legacyGetUsernameFromToken(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        return claims.getSubject();
+    }
+}
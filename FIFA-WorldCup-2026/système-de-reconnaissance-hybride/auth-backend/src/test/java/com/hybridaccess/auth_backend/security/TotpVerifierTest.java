@@ -0,0 +1,120 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TotpVerifier : vecteurs RFC 6238 (annexe B, SHA-1, tronqués à 6 chiffres), bords de fenêtre, anti-rejeu.
+ */
+class TotpVerifierTest {
+
+    /**
+     * Base32 de la graine ASCII "12345678901234567890" (RFC 6238, annexe B)
+     */
+    private static final String RFC_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+    private static final long STEP_MS = 30_000L;
+    private static final long NOW_MS = 1_111_111_111_000L;
+
+    private TotpVerifier verifier;
+    private TotpVerifier.Secret secret;
+
+    @BeforeEach
+    void setUp() {
+        verifier = newVerifier();
+        secret = TotpVerifier.Secret.of(RFC_SECRET);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "59,          94287082",
+            "1111111109,  07081804",
+            "1111111111,  14050471",
+            "1234567890,  89005924",
+            "2000000000,  69279037",
+            "20000000000, 65353130"
+    })
+    void acceptsRfc6238Vectors(long unixSeconds, String eightDigits) {
+        String code = eightDigits.substring(2);
+
+        assertThat(verifier.verify(secret, code, 0, unixSeconds * 1000)).isTrue();
+    }
+
+    @Test
+    void acceptsStepsUpToTheWindowEdge() {
+        assertThat(newVerifier().verify(secret, codeAt(-1), 1, NOW_MS)).isTrue();
+        assertThat(newVerifier().verify(secret, codeAt(1), 1, NOW_MS)).isTrue();
+        assertThat(newVerifier().verify(secret, codeAt(-2), 2, NOW_MS)).isTrue();
+        assertThat(newVerifier().verify(secret, codeAt(2), 2, NOW_MS)).isTrue();
+    }
+
+    @Test
+    void rejectsStepsBeyondTheWindow() {
+        assertThat(verifier.verify(secret, codeAt(-1), 0, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, codeAt(-2), 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, codeAt(2), 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, codeAt(-3), 2, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, codeAt(3), 2, NOW_MS)).isFalse();
+    }
+
+    @Test
+    void rejectsSameStepReplay() {
+        String code = codeAt(0);
+
+        assertThat(verifier.verify(secret, code, 1, NOW_MS)).isTrue();
+        assertThat(verifier.verify(secret, code, 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, code, 1, NOW_MS + STEP_MS)).isFalse();
+        assertThat(verifier.getStats()).containsEntry("replaysRejected", 2L);
+    }
+
+    @Test
+    void rejectsEarlierStepOnceALaterOneWasAccepted() {
+        assertThat(verifier.verify(secret, codeAt(1), 1, NOW_MS)).isTrue();
+
+        assertThat(verifier.verify(secret, codeAt(0), 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, codeAt(-1), 1, NOW_MS)).isFalse();
+    }
+
+    @Test
+    void replayGuardIsPerSecret() {
+        TotpVerifier.Secret other = TotpVerifier.Secret.of("JBSWY3DPEHPK3PXP");
+        String otherCode = String.format("%06d", new GoogleAuthenticator().getTotpPassword("JBSWY3DPEHPK3PXP", NOW_MS));
+
+        assertThat(verifier.verify(secret, codeAt(0), 1, NOW_MS)).isTrue();
+        assertThat(verifier.verify(other, otherCode, 1, NOW_MS)).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedCodes() {
+        assertThat(verifier.verify(secret, null, 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, "12345", 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, "1234567", 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(secret, "12a456", 1, NOW_MS)).isFalse();
+        assertThat(verifier.verify(" ", codeAt(0), 1)).isFalse();
+    }
+
+    @Test
+    void acceptsSurroundingWhitespaceAndLowercaseSecret() {
+        TotpVerifier.Secret lowercase = TotpVerifier.Secret.of(" " + RFC_SECRET.toLowerCase() + " ");
+
+        assertThat(verifier.verify(lowercase, " " + codeAt(0) + " ", 0, NOW_MS)).isTrue();
+    }
+
+    private static TotpVerifier newVerifier() {
+        TotpVerifier verifier = new TotpVerifier();
+        ReflectionTestUtils.setField(verifier, "replayGuardMaxSize", 1000);
+        return verifier;
+    }
+
+    /**
+     * Code attendu au pas courant + offset (googleauth comme référence indépendante)
+     */
+    private static String codeAt(int offset) {
+        return String.format("%06d", new GoogleAuthenticator().getTotpPassword(RFC_SECRET, NOW_MS + offset * STEP_MS));
+    }
+}
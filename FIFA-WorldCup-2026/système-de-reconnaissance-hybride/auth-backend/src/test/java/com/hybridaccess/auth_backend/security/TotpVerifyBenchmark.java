@@ -0,0 +1,83 @@
+package com.hybridaccess.auth_backend.security;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérification d'un code OTP avec tolérance (± 2 pas), code erroné : toute la fenêtre est calculée
+ * (cas le plus coûteux, celui d'un attaquant) ; un code valide serait refusé comme rejeu dès la 2e itération.
+ * - legacyThreeAuthorize : ancien TotpService.validateCodeWithTolerance, trois authorize() googleauth
+ *   (fenêtre interne ± 1, soit neuf HMAC, secret décodé à chaque appel)
+ * - legacyAuthorize : ancien OtpService.verifyCode, un authorize() (± 1)
+ * - verifier* : TotpVerifier (secret Base32 ou {@link TotpVerifier.Secret} en cache)
+ *
+ * Lancement : mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   puis java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TotpVerifyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotpVerifyBenchmark {
+
+    private static final String SECRET = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP";
+
+    private final GoogleAuthenticator googleAuthenticator = new GoogleAuthenticator();
+    private TotpVerifier verifier;
+    private TotpVerifier.Secret cachedSecret;
+    private String wrongCode;
+
+    @Setup
+    public void setup() {
+        verifier = new TotpVerifier();
+        ReflectionTestUtils.setField(verifier, "replayGuardMaxSize", 1000);
+        cachedSecret = TotpVerifier.Secret.of(SECRET);
+        int current = googleAuthenticator.getTotpPassword(SECRET);
+        wrongCode = String.format("%06d", (current + 500_000) % 1_000_000);
+    }
+
+    @Benchmark
+    public boolean legacyThreeAuthorize() {
+        int code = Integer.parseInt(wrongCode);
+        for (int i = -1; i <= 1; i++) {
+            if (googleAuthenticator.authorize(SECRET, code, System.currentTimeMillis() + (i * 30000L))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean legacyAuthorize() {
+        return wrongCode.matches("\\d{6}") && googleAuthenticator.authorize(SECRET, Integer.parseInt(wrongCode));
+    }
+
+    @Benchmark
+    public boolean verifierWindow2() {
+        return verifier.verify(SECRET, wrongCode, 2);
+    }
+
+    @Benchmark
+    public boolean verifierWindow1() {
+        return verifier.verify(SECRET, wrongCode, 1);
+    }
+
+    @Benchmark
+    public boolean verifierCachedSecretWindow2() {
+        return verifier.verify(cachedSecret, wrongCode, 2);
+    }
+}
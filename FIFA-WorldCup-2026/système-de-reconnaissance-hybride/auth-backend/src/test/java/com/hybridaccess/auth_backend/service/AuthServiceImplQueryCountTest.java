@@ -0,0 +1,115 @@
+package com.hybridaccess.auth_backend.service;
+
+import com.hybridaccess.auth_backend.dto.auth.LoginRequest;
+import com.hybridaccess.auth_backend.dto.auth.LoginResponse;
+import com.hybridaccess.auth_backend.entity.AccessLevel;
+import com.hybridaccess.auth_backend.entity.User;
+import com.hybridaccess.auth_backend.exception.UnauthorizedException;
+import com.hybridaccess.auth_backend.repository.AccessLevelRepository;
+import com.hybridaccess.auth_backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Nombre de requêtes SQL émises par un login (statistiques Hibernate, base H2 en mémoire).
+ *
+ * Login réussi sans MFA : 1 SELECT users (+ access_levels en jointure), 1 UPDATE ciblé,
+ * 1 INSERT refresh_tokens. Login échoué : 1 SELECT users, 1 UPDATE du compteur d'échecs.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:login-query-count;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never",
+        "security.password-hashing.strength=10",
+        "security.failed-logins.write-behind=false",
+        "risk.threshold.medium=1000",
+        "risk.threshold.high=1000"
+})
+class AuthServiceImplQueryCountTest {
+
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccessLevelRepository accessLevelRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void successfulLoginFetchesUserOnceAndWritesOnce() {
+        User user = createUser("login-ok@test.com");
+
+        statistics.clear();
+        LoginResponse response = authService.login(new LoginRequest(user.getEmail(), PASSWORD));
+
+        assertThat(response.getMfaRequired()).isFalse();
+        assertThat(response.getToken()).isNotBlank();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(reloaded.getLastLogin()).isNotNull();
+        assertThat(reloaded.getFailedLoginAttempts()).isZero();
+    }
+
+    @Test
+    void failedLoginFetchesUserOnceAndIncrementsCounterInPlace() {
+        User user = createUser("login-ko@test.com");
+
+        statistics.clear();
+        assertThatThrownBy(() -> authService.login(new LoginRequest(user.getEmail(), "wrong-password")))
+                .isInstanceOf(UnauthorizedException.class);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getFailedLoginAttempts()).isEqualTo(1);
+    }
+
+    private User createUser(String email) {
+        AccessLevel publicLevel = accessLevelRepository.save(AccessLevel.builder()
+                .name("PUBLIC-" + email)
+                .description("Password only")
+                .priorityLevel(1)
+                .build());
+        return userRepository.save(User.builder()
+                .fullName("Query Count")
+                .email(email)
+                .password(passwordEncoder.encode(PASSWORD))
+                .accessLevel(publicLevel)
+                .lastLogin(LocalDateTime.now().minusDays(1))
+                .build());
+    }
+}
@@ -14,6 +14,8 @@ class Settings(BaseSettings):
     # Face Recognition Parameters
     EMBEDDING_THRESHOLD: float = 25.0  # Very relaxed for maximum usability
     IMAGE_SIZE: int = 64
+    MAX_IMAGE_BYTES: int = 2 * 1024 * 1024  # Binary uploads larger than this are rejected (413)
+    MAX_BATCH_SIZE: int = 32  # Max images per /verify-batch call
     
     # Server Configuration
     HOST: str = "0.0.0.0"
@@ -2,7 +2,7 @@
 Pydantic schemas for API request/response validation.
 """
 from pydantic import BaseModel, Field
-from typing import Optional
+from typing import List, Optional
 
 
 class FaceEnrollRequest(BaseModel):
@@ -30,3 +30,17 @@ class FaceVerifyResponse(BaseModel):
     confidence: float = Field(..., description="Confidence score (0-1)")
     autoEnrolled: bool = Field(False, description="Whether user was auto-enrolled during this verification")
     message: str = Field(..., description="Human-readable result message")
+
+
+class FaceVerifyBatchItemResponse(BaseModel):
+    """Result of one image of a batch verification (same order as the request)."""
+    match: bool = Field(False, description="Whether the face matches")
+    confidence: float = Field(0.0, description="Confidence score (0-1)")
+    autoEnrolled: bool = Field(False, description="Whether user was auto-enrolled during this verification")
+    message: str = Field(..., description="Human-readable result message")
+    error: Optional[str] = Field(None, description="Set when this image could not be processed")
+
+
+class FaceVerifyBatchResponse(BaseModel):
+    """Response schema for batch face verification."""
+    results: List[FaceVerifyBatchItemResponse] = Field(..., description="One result per image, in request order")
@@ -1,16 +1,20 @@
 """
 API router for face recognition endpoints.
 """
-from fastapi import APIRouter, Depends, HTTPException
+from fastapi import APIRouter, Depends, File, Form, HTTPException, Query, Request, UploadFile
 from sqlalchemy.orm import Session
+from app.config import settings
 from app.database import get_db, engine
 from app.models.schemas import (
     FaceEnrollRequest,
     FaceEnrollResponse,
     FaceVerifyRequest,
-    FaceVerifyResponse
+    FaceVerifyResponse,
+    FaceVerifyBatchItemResponse,
+    FaceVerifyBatchResponse
 )
 from app.services import face_service
+from typing import List
 import logging
 
 logger = logging.getLogger(__name__)
@@ -109,3 +113,152 @@ async def verify_face(
     except Exception as e:
         logger.error(f"Unexpected error during verification: {str(e)}", exc_info=True)
         raise HTTPException(status_code=500, detail="Internal server error during face verification")
+
+
+async def read_image_body(request: Request) -> bytearray:
+    """
+    Read a raw image body (application/octet-stream, image/*) without base64 or JSON.
+    
+    The body is streamed into a single buffer and rejected with 413 as soon as it
+    exceeds MAX_IMAGE_BYTES (declared Content-Length checked first).
+    """
+    declared = request.headers.get("content-length")
+    if declared is not None:
+        try:
+            declared_size = int(declared)
+        except ValueError:
+            raise HTTPException(status_code=400, detail="Invalid Content-Length")
+        if declared_size > settings.MAX_IMAGE_BYTES:
+            raise HTTPException(status_code=413, detail=f"Image exceeds {settings.MAX_IMAGE_BYTES} bytes")
+    
+    body = bytearray()
+    async for chunk in request.stream():
+        body += chunk
+        if len(body) > settings.MAX_IMAGE_BYTES:
+            raise HTTPException(status_code=413, detail=f"Image exceeds {settings.MAX_IMAGE_BYTES} bytes")
+    
+    if not body:
+        raise HTTPException(status_code=400, detail="Empty image body")
+    return body
+
+
+@router.post("/enroll-binary", response_model=FaceEnrollResponse)
+async def enroll_face_binary(
+    request: Request,
+    userId: str = Query(...),
+    db: Session = Depends(get_db)
+):
+    """
+    Enroll a user's face from a raw image body (same behaviour as /enroll, without base64).
+    """
+    image_bytes = await read_image_body(request)
+    try:
+        logger.info(f"Enrolling face for user: {userId} ({len(image_bytes)} bytes, binary)")
+        
+        embedding_id = face_service.enroll_face(
+            user_id=userId,
+            image_base64=None,
+            db=db,
+            image_bytes=image_bytes
+        )
+        
+        return FaceEnrollResponse(
+            success=True,
+            message="Face enrolled successfully",
+            embeddingId=embedding_id
+        )
+    
+    except ValueError as e:
+        logger.error(f"Validation error during enrollment: {str(e)}")
+        raise HTTPException(status_code=400, detail=str(e))
+    
+    except Exception as e:
+        logger.error(f"Unexpected error during enrollment: {str(e)}", exc_info=True)
+        raise HTTPException(status_code=500, detail="Internal server error during face enrollment")
+
+
+@router.post("/verify-binary", response_model=FaceVerifyResponse)
+async def verify_face_binary(
+    request: Request,
+    userId: str = Query(...),
+    db: Session = Depends(get_db)
+):
+    """
+    Verify a face from a raw image body (same behaviour as /verify, auto-enrollment included,
+    without base64).
+    """
+    image_bytes = await read_image_body(request)
+    try:
+        logger.info(f"Verifying face for user: {userId} ({len(image_bytes)} bytes, binary)")
+        
+        match, confidence, auto_enrolled, message = face_service.verify_face(
+            user_id=userId,
+            image_base64=None,
+            db=db,
+            image_bytes=image_bytes
+        )
+        
+        return FaceVerifyResponse(
+            match=match,
+            confidence=confidence,
+            autoEnrolled=auto_enrolled,
+            message=message
+        )
+    
+    except ValueError as e:
+        logger.error(f"Validation error during verification: {str(e)}")
+        raise HTTPException(status_code=400, detail=str(e))
+    
+    except Exception as e:
+        logger.error(f"Unexpected error during verification: {str(e)}", exc_info=True)
+        raise HTTPException(status_code=500, detail="Internal server error during face verification")
+
+
+@router.post("/verify-batch", response_model=FaceVerifyBatchResponse)
+async def verify_face_batch(
+    userIds: List[str] = Form(...),
+    images: List[UploadFile] = File(...),
+    db: Session = Depends(get_db)
+):
+    """
+    Verify several faces in one call (multipart/form-data: userIds[i] goes with images[i]).
+    
+    Same behaviour as /verify-binary for each image (auto-enrollment included); results are
+    returned in request order. An invalid or oversized image only fails its own item.
+    """
+    if len(userIds) != len(images):
+        raise HTTPException(status_code=400, detail="userIds and images must have the same length")
+    if len(images) > settings.MAX_BATCH_SIZE:
+        raise HTTPException(status_code=413, detail=f"Batch exceeds {settings.MAX_BATCH_SIZE} images")
+    
+    items = []
+    oversized = {}
+    for i, (user_id, image) in enumerate(zip(userIds, images)):
+        image_bytes = await image.read()
+        if len(image_bytes) > settings.MAX_IMAGE_BYTES:
+            oversized[i] = FaceVerifyBatchItemResponse(
+                message="Invalid image",
+                error=f"Image exceeds {settings.MAX_IMAGE_BYTES} bytes"
+            )
+            image_bytes = b""
+        items.append((user_id, image_bytes))
+    
+    try:
+        logger.info(f"Verifying batch of {len(items)} face(s)")
+        
+        valid = [i for i in range(len(items)) if i not in oversized]
+        results = face_service.verify_faces_batch([items[i] for i in valid], db)
+        
+        responses = dict(oversized)
+        for i, result in zip(valid, results):
+            responses[i] = FaceVerifyBatchItemResponse(**result)
+        
+        return FaceVerifyBatchResponse(results=[responses[i] for i in range(len(items))])
+    
+    except ValueError as e:
+        logger.error(f"Validation error during batch verification: {str(e)}")
+        raise HTTPException(status_code=400, detail=str(e))
+    
+    except Exception as e:
+        logger.error(f"Unexpected error during batch verification: {str(e)}", exc_info=True)
+        raise HTTPException(status_code=500, detail="Internal server error during face verification")
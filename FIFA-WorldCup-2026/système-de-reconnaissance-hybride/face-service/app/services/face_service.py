@@ -7,7 +7,7 @@ import re
 import json
 import numpy as np
 import cv2
-from typing import List, Tuple
+from typing import List, Optional, Tuple, Union
 from sqlalchemy.orm import Session
 from app.models.database import FaceEmbedding
 from app.config import settings
@@ -37,22 +37,49 @@ def decode_base64_image(base64_str: str) -> np.ndarray:
         # Decode base64 to bytes
         image_bytes = base64.b64decode(base64_str)
         
-        # Convert bytes to numpy array
-        nparr = np.frombuffer(image_bytes, np.uint8)
-        
-        # Decode image
-        image = cv2.imdecode(nparr, cv2.IMREAD_COLOR)
-        
-        if image is None:
-            raise ValueError("Failed to decode image from base64")
-            
-        return image
+        return decode_image_bytes(image_bytes)
     
     except Exception as e:
         logger.error(f"Error decoding base64 image: {str(e)}")
         raise ValueError(f"Invalid base64 image: {str(e)}")
 
 
+def decode_image_bytes(image_bytes: Union[bytes, bytearray]) -> np.ndarray:
+    """
+    Decode raw image bytes (JPEG/PNG) to a numpy array, without copying the buffer.
+    
+    Args:
+        image_bytes: Encoded image as received from a binary upload
+        
+    Returns:
+        numpy array representing the image in BGR format (OpenCV default)
+        
+    Raises:
+        ValueError: If the bytes cannot be decoded as an image
+    """
+    # np.frombuffer wraps the buffer (no copy)
+    nparr = np.frombuffer(image_bytes, np.uint8)
+    
+    # Decode image
+    image = cv2.imdecode(nparr, cv2.IMREAD_COLOR)
+    
+    if image is None:
+        raise ValueError("Failed to decode image")
+        
+    return image
+
+
+def load_image(image_base64: Optional[str], image_bytes: Optional[Union[bytes, bytearray]]) -> np.ndarray:
+    """
+    Decode the image from whichever transport was used (raw bytes preferred over base64).
+    """
+    if image_bytes is not None:
+        return decode_image_bytes(image_bytes)
+    if image_base64:
+        return decode_base64_image(image_base64)
+    raise ValueError("No image provided")
+
+
 def generate_embedding(image: np.ndarray) -> List[float]:
     """
     Generate a face embedding from an image using simplified algorithm.
@@ -150,7 +177,8 @@ def compute_confidence(distance: float, threshold: float) -> float:
     return min(1.0, max(0.0, float(confidence)))
 
 
-def enroll_face(user_id: str, image_base64: str, db: Session) -> str:
+def enroll_face(user_id: str, image_base64: Optional[str], db: Session,
+                image_bytes: Optional[Union[bytes, bytearray]] = None) -> str:
     """
     Enroll a user's face by storing their embedding.
     
@@ -158,8 +186,9 @@ def enroll_face(user_id: str, image_base64: str, db: Session) -> str:
     
     Args:
         user_id: Unique user identifier (email or ID)
-        image_base64: Base64-encoded image of the user's face
+        image_base64: Base64-encoded image of the user's face (JSON transport)
         db: Database session
+        image_bytes: Raw encoded image (binary transport), used instead of image_base64
         
     Returns:
         ID of the stored embedding
@@ -169,7 +198,7 @@ def enroll_face(user_id: str, image_base64: str, db: Session) -> str:
     """
     try:
         # Decode and generate embedding
-        image = decode_base64_image(image_base64)
+        image = load_image(image_base64, image_bytes)
         embedding = generate_embedding(image)
         
         # Serialize embedding to JSON
@@ -203,7 +232,8 @@ def enroll_face(user_id: str, image_base64: str, db: Session) -> str:
         raise
 
 
-def verify_face(user_id: str, image_base64: str, db: Session) -> Tuple[bool, float, bool, str]:
+def verify_face(user_id: str, image_base64: Optional[str], db: Session,
+                image_bytes: Optional[Union[bytes, bytearray]] = None) -> Tuple[bool, float, bool, str]:
     """
     Verify if a face image matches the enrolled face for a user.
     
@@ -212,8 +242,9 @@ def verify_face(user_id: str, image_base64: str, db: Session) -> Tuple[bool, flo
     
     Args:
         user_id: User identifier to verify against
-        image_base64: Base64-encoded image to verify
+        image_base64: Base64-encoded image to verify (JSON transport)
         db: Database session
+        image_bytes: Raw encoded image (binary transport), used instead of image_base64
         
     Returns:
         Tuple of (match: bool, confidence: float, autoEnrolled: bool, message: str)
@@ -230,7 +261,7 @@ def verify_face(user_id: str, image_base64: str, db: Session) -> Tuple[bool, flo
             logger.info(f"No face enrolled for user {user_id}. Auto-enrolling...")
             
             # Decode and generate embedding for the new face
-            image = decode_base64_image(image_base64)
+            image = load_image(image_base64, image_bytes)
             embedding = generate_embedding(image)
             
             # Serialize embedding to JSON
@@ -257,7 +288,7 @@ def verify_face(user_id: str, image_base64: str, db: Session) -> Tuple[bool, flo
         
         # === NORMAL VERIFICATION LOGIC ===
         # Generate embedding from current image
-        image = decode_base64_image(image_base64)
+        image = load_image(image_base64, image_bytes)
         current_embedding = generate_embedding(image)
         
         # Load stored embedding
@@ -290,3 +321,83 @@ def verify_face(user_id: str, image_base64: str, db: Session) -> Tuple[bool, flo
     except Exception as e:
         logger.error(f"Error verifying face for user {user_id}: {str(e)}")
         raise
+
+
+def verify_faces_batch(items: List[Tuple[str, Union[bytes, bytearray]]], db: Session) -> List[dict]:
+    """
+    Verify several (user_id, image_bytes) pairs in one pass.
+    
+    Same rules as verify_face (auto-enrollment included), but:
+    - stored embeddings for all users are loaded with a single query
+    - distances are computed for the whole batch at once (vectorized)
+    - new embeddings (auto-enrollment) are written with a single commit
+    - an invalid image only fails its own item
+    
+    Args:
+        items: (user_id, raw encoded image) pairs
+        db: Database session
+        
+    Returns:
+        One dict per item, in order: match, confidence, autoEnrolled, message, error
+    """
+    if not items:
+        return []
+    results: List[Optional[dict]] = [None] * len(items)
+    
+    # Embeddings of the submitted images
+    embeddings: List[Optional[List[float]]] = [None] * len(items)
+    for i, (user_id, image_bytes) in enumerate(items):
+        try:
+            embeddings[i] = generate_embedding(decode_image_bytes(image_bytes))
+        except ValueError as e:
+            logger.error(f"Invalid image in batch for user {user_id}: {str(e)}")
+            results[i] = {"match": False, "confidence": 0.0, "autoEnrolled": False,
+                          "message": "Invalid image", "error": str(e)}
+    
+    # Stored embeddings, one query for the whole batch
+    user_ids = list({user_id for user_id, _ in items})
+    stored = {
+        row.user_id: json.loads(row.embedding)
+        for row in db.query(FaceEmbedding).filter(FaceEmbedding.user_id.in_(user_ids)).all()
+    }
+    
+    try:
+        # Auto-enrollment: first valid image of a user without stored embedding
+        enrolled = set()
+        for i, (user_id, _) in enumerate(items):
+            if results[i] is None and user_id not in stored:
+                stored[user_id] = embeddings[i]
+                enrolled.add(i)
+                db.add(FaceEmbedding(user_id=user_id, embedding=json.dumps(embeddings[i])))
+                results[i] = {"match": True, "confidence": 1.0, "autoEnrolled": True,
+                              "message": "First face enrolled and verified for this user.", "error": None}
+                logger.info(f"✅ First face enrolled automatically for user {user_id} (batch)")
+        if enrolled:
+            db.commit()
+    except Exception as e:
+        db.rollback()
+        logger.error(f"Error auto-enrolling faces in batch: {str(e)}")
+        raise
+    
+    # Distances for all remaining items at once
+    pending = [i for i in range(len(items)) if results[i] is None]
+    if pending:
+        current = np.array([embeddings[i] for i in pending], dtype=np.float32)
+        reference = np.array([stored[items[i][0]] for i in pending], dtype=np.float32)
+        if current.shape != reference.shape:
+            raise ValueError(f"Embedding dimensions don't match: {current.shape} vs {reference.shape}")
+        distances = np.linalg.norm(current - reference, axis=1)
+        
+        threshold = settings.EMBEDDING_THRESHOLD
+        for i, distance in zip(pending, distances.tolist()):
+            confidence = compute_confidence(distance, threshold)
+            match = distance < threshold
+            if match:
+                message = f"Face verified successfully (distance: {distance:.4f}, confidence: {confidence:.2f})"
+            else:
+                message = f"Face does not match stored embedding (distance: {distance:.4f}, confidence: {confidence:.2f})"
+            results[i] = {"match": match, "confidence": confidence, "autoEnrolled": False,
+                          "message": message, "error": None}
+    
+    logger.info(f"Batch face verification: {len(items)} image(s), {len(enrolled)} auto-enrolled")
+    return results
@@ -2,7 +2,7 @@ import React, { createContext, useContext, useState, useEffect, ReactNode } from
 import toast from 'react-hot-toast';
 import { AuthContextType, User, LoginResponse } from '../types';
 import authApi from '../api/authApi';
-import { getToken, setToken as saveToken, clearToken, isTokenValid } from '../lib/token';
+import { getToken, setToken as saveToken, clearToken, isTokenValid, getRefreshToken, setRefreshToken } from '../lib/token';
 import { clearMfaDone } from '../lib/mfaState';
 
 // Création du contexte
@@ -31,7 +31,8 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
                 console.log('🔍 AuthContext Init - Token exists:', !!storedToken);
 
                 // Vérifier si le token existe et est valide
-                if (storedToken && isTokenValid(storedToken)) {
+                // (un JWT expiré reste utilisable si un refresh token est présent : http.ts le renouvelle)
+                if (storedToken && (isTokenValid(storedToken) || getRefreshToken())) {
                     console.log('✅ Token is valid, setting state...');
                     setToken(storedToken);
 
@@ -110,6 +111,9 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
         if (!response.mfaRequired && response.token) {
             setToken(response.token);
             saveToken(response.token);
+            if (response.refreshToken) {
+                setRefreshToken(response.refreshToken);
+            }
 
             // Récupérer les infos utilisateur si fournies
             if (response.user) {
@@ -153,6 +157,12 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
      * Supprime le token et les données utilisateur
      */
     const logout = () => {
+        // Révocation côté serveur (best effort, sans bloquer la déconnexion locale)
+        const refreshToken = getRefreshToken();
+        if (refreshToken) {
+            authApi.logout(refreshToken, getToken()).catch(() => undefined);
+        }
+
         setToken(null);
         setUser(null);
         clearToken(); // ✅ Utiliser le helper centralisé
@@ -177,10 +187,13 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({ children }) => {
         login,
         logout,
         setUser,
-        setToken: (newToken: string | null) => {
+        setToken: (newToken: string | null, refreshToken?: string) => {
             setToken(newToken);
             if (newToken) {
                 saveToken(newToken);
+                if (refreshToken) {
+                    setRefreshToken(refreshToken);
+                }
             } else {
                 clearToken();
             }
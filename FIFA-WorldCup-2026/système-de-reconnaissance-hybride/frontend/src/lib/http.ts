@@ -1,6 +1,6 @@
-import axios, { AxiosError, AxiosInstance } from 'axios';
+import axios, { AxiosError, AxiosInstance, InternalAxiosRequestConfig } from 'axios';
 import toast from 'react-hot-toast';
-import { getToken, clearToken } from './token';
+import { getToken, setToken, clearToken, getRefreshToken, setRefreshToken } from './token';
 
 /**
  * Instance HTTP centralisée avec gestion robuste des erreurs
@@ -35,6 +35,37 @@ http.interceptors.request.use(
     }
 );
 
+/**
+ * Renouvellement du JWT via le refresh token
+ * Une seule requête /auth/refresh en vol : les 401 concurrents attendent la même promesse
+ */
+let refreshPromise: Promise<string | null> | null = null;
+
+function refreshAccessToken(): Promise<string | null> {
+    if (!refreshPromise) {
+        const refreshToken = getRefreshToken();
+        if (!refreshToken) {
+            return Promise.resolve(null);
+        }
+
+        // axios "nu" : ne pas repasser par les interceptors de l'instance
+        refreshPromise = axios
+            .post(`${baseURL}/auth/refresh`, { refreshToken }, { timeout: 15000 })
+            .then((response) => {
+                setToken(response.data.token);
+                setRefreshToken(response.data.refreshToken);
+                return response.data.token as string;
+            })
+            .catch(() => null)
+            .finally(() => {
+                refreshPromise = null;
+            });
+    }
+    return refreshPromise;
+}
+
+type RetriableRequestConfig = InternalAxiosRequestConfig & { _retry?: boolean };
+
 /**
  * Response Interceptor
  * Gestion centralisée des erreurs HTTP
@@ -44,9 +75,21 @@ http.interceptors.response.use(
     (response) => response,
 
     // Erreur: gestion détaillée selon le code HTTP
-    (error: AxiosError) => {
+    async (error: AxiosError) => {
         const status = error.response?.status;
         const message = (error.response?.data as any)?.message || error.message;
+        const originalRequest = error.config as RetriableRequestConfig | undefined;
+
+        // 401 sur une requête authentifiée : tenter un refresh puis rejouer une seule fois
+        if (status === 401 && originalRequest && !originalRequest._retry
+                && !originalRequest.url?.includes('/auth/login')) {
+            originalRequest._retry = true;
+            const newToken = await refreshAccessToken();
+            if (newToken) {
+                originalRequest.headers.Authorization = `Bearer ${newToken}`;
+                return http(originalRequest);
+            }
+        }
 
         // 401 Unauthorized - Session expirée ou token invalide
         if (status === 401) {
@@ -5,6 +5,7 @@
  */
 
 const TOKEN_KEY = 'token';
+const REFRESH_TOKEN_KEY = 'refresh_token';
 
 /**
  * Récupère le token JWT depuis localStorage
@@ -30,11 +31,35 @@ export function setToken(token: string): void {
 }
 
 /**
- * Supprime le token JWT et toutes les données utilisateur
+ * Récupère le refresh token depuis localStorage
+ */
+export function getRefreshToken(): string | null {
+    try {
+        return localStorage.getItem(REFRESH_TOKEN_KEY);
+    } catch (error) {
+        console.error('Error reading refresh token from localStorage:', error);
+        return null;
+    }
+}
+
+/**
+ * Stocke le refresh token dans localStorage
+ */
+export function setRefreshToken(refreshToken: string): void {
+    try {
+        localStorage.setItem(REFRESH_TOKEN_KEY, refreshToken);
+    } catch (error) {
+        console.error('Error saving refresh token to localStorage:', error);
+    }
+}
+
+/**
+ * Supprime le token JWT, le refresh token et toutes les données utilisateur
  */
 export function clearToken(): void {
     try {
         localStorage.removeItem(TOKEN_KEY);
+        localStorage.removeItem(REFRESH_TOKEN_KEY);
         localStorage.removeItem('user');
         localStorage.removeItem('mfa_state');
         localStorage.removeItem('mfa_email');
@@ -81,7 +81,7 @@ const MfaPage: React.FC = () => {
             if (response.token) {
                 // ✅ STEP 1: Save token first
                 localStorage.setItem('token', response.token);
-                setToken(response.token);
+                setToken(response.token, response.refreshToken);
 
                 // ✅ STEP 2: Fetch user data immediately with this token
                 try {
@@ -184,7 +184,7 @@ const MfaPage: React.FC = () => {
             if (response.token) {
                 // ✅ STEP 1: Save token first
                 localStorage.setItem('token', response.token);
-                setToken(response.token);
+                setToken(response.token, response.refreshToken);
 
                 // ✅ STEP 2: Fetch user data immediately with this token
                 try {
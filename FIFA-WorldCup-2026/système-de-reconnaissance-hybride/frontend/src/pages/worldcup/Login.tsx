@@ -43,6 +43,7 @@ const Login = () => {
 
         // Store MFA session data
         localStorage.setItem("mfa_sessionId", response.sessionId || "");
+        localStorage.setItem("mfa_sessionToken", response.mfaSessionToken || "");
         localStorage.setItem("mfa_requiredFactors", JSON.stringify(response.requiredFactors || []));
         localStorage.setItem("mfa_email", email);
         localStorage.setItem("mfa_from", "/dashboard");
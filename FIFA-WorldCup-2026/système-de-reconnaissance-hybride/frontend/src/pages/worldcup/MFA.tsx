@@ -17,6 +17,7 @@ const MFA = () => {
   const [otpCode, setOtpCode] = useState("");
   const [isLoading, setIsLoading] = useState(false);
   const [capturedImage, setCapturedImage] = useState<string | null>(null);
+  const [capturedBlob, setCapturedBlob] = useState<Blob | null>(null);
   const webcamRef = useRef<Webcam>(null);
 
   const navigate = useNavigate();
@@ -28,16 +29,36 @@ const MFA = () => {
   const requiredFactors = JSON.parse(localStorage.getItem("mfa_requiredFactors") || "[]");
   const from = (location.state as any)?.from || "/dashboard";
 
+  // Libère l'aperçu (object URL) quand la capture change ou au démontage
+  useEffect(() => {
+    return () => {
+      if (capturedImage) URL.revokeObjectURL(capturedImage);
+    };
+  }, [capturedImage]);
+
+  // Capture en JPEG binaire (Blob) : envoyée telle quelle, sans data URL ni Base64
   const handleCapture = () => {
-    const imageSrc = webcamRef.current?.getScreenshot();
-    if (imageSrc) {
-      setCapturedImage(imageSrc);
-      toast.success("Photo captured!");
-    }
+    const canvas = webcamRef.current?.getCanvas();
+    canvas?.toBlob(
+      (blob) => {
+        if (blob) {
+          setCapturedBlob(blob);
+          setCapturedImage(URL.createObjectURL(blob));
+          toast.success("Photo captured!");
+        }
+      },
+      "image/jpeg",
+      0.92
+    );
+  };
+
+  const handleRetake = () => {
+    setCapturedBlob(null);
+    setCapturedImage(null);
   };
 
   const handleFaceVerify = async () => {
-    if (!capturedImage) {
+    if (!capturedBlob) {
       toast.error("Please capture your face first");
       return;
     }
@@ -46,18 +67,25 @@ const MFA = () => {
       setIsLoading(true);
       console.log("🔐 Verifying FACE...", { sessionId });
 
-      const response = await authApi.verifyMfa({
-        sessionId,
-        factorType: "FACE",
-        imageBase64: capturedImage.split(",")[1], // Remove data:image prefix
-      });
+      const response = await authApi.verifyMfaImage(
+        {
+          sessionId,
+          mfaSessionToken: localStorage.getItem("mfa_sessionToken") || undefined,
+          factorType: "FACE",
+        },
+        capturedBlob
+      );
 
       if (response.token) {
-        setToken(response.token);
+        setToken(response.token, response.refreshToken);
         toast.success("Face verified successfully!");
         localStorage.removeItem("mfa_sessionId");
+        localStorage.removeItem("mfa_sessionToken");
         localStorage.removeItem("mfa_requiredFactors");
         navigate(from, { replace: true });
+      } else if (response.mfaSessionToken) {
+        // Facteur suivant : le token précédent est consommé
+        localStorage.setItem("mfa_sessionToken", response.mfaSessionToken);
       }
     } catch (error: any) {
       console.error("Face verification error:", error);
@@ -79,16 +107,21 @@ const MFA = () => {
 
       const response = await authApi.verifyMfa({
         sessionId,
+        mfaSessionToken: localStorage.getItem("mfa_sessionToken") || undefined,
         factorType: "OTP",
         factorValue: otpCode,
       });
 
       if (response.token) {
-        setToken(response.token);
+        setToken(response.token, response.refreshToken);
         toast.success("OTP verified successfully!");
         localStorage.removeItem("mfa_sessionId");
+        localStorage.removeItem("mfa_sessionToken");
         localStorage.removeItem("mfa_requiredFactors");
         navigate(from, { replace: true });
+      } else if (response.mfaSessionToken) {
+        // Facteur suivant : le token précédent est consommé
+        localStorage.setItem("mfa_sessionToken", response.mfaSessionToken);
       }
     } catch (error: any) {
       console.error("OTP verification error:", error);
@@ -197,7 +230,7 @@ const MFA = () => {
                 ) : (
                   <div className="flex gap-3 mb-4">
                     <Button
-                      onClick={() => setCapturedImage(null)}
+                      onClick={handleRetake}
                       variant="outline"
                       className="flex-1"
                     >
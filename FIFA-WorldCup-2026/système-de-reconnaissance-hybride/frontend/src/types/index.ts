@@ -15,9 +15,11 @@ export interface RegisterRequest {
 
 export interface LoginResponse {
     token?: string;
+    refreshToken?: string; // Refresh token (rotation à chaque /auth/refresh)
     mfaRequired: boolean;
     requiredFactors?: string[];
     sessionId?: string;
+    mfaSessionToken?: string; // État MFA chiffré (mode token), renvoyé avec chaque facteur
     riskScore: number;
     message?: string;
     user?: User; // User data returned after successful MFA verification
@@ -25,11 +27,22 @@ export interface LoginResponse {
 
 export interface MfaVerifyRequest {
     sessionId: string;
+    mfaSessionToken?: string; // Remplacé après chaque facteur vérifié (mode token)
     factorType: string; // "FACE" | "OTP"
+    factorTypes?: string[]; // Plusieurs facteurs vérifiés en parallèle dans une seule requête
     factorData: string;
     imageBase64?: string; // For FACE factor - base64-encoded webcam capture
 }
 
+// Vérification avec l'image en binaire (multipart) : l'image est passée à part (Blob)
+export interface MfaImageVerifyRequest {
+    sessionId: string;
+    mfaSessionToken?: string;
+    factorType: string;
+    factorTypes?: string[];
+    otpCode?: string;
+}
+
 // ============================================================================
 // User & Access Level Types
 // ============================================================================
@@ -98,7 +111,7 @@ export interface AuthContextType {
     login: (email: string, password: string) => Promise<LoginResponse>;
     logout: () => void;
     setUser: (user: User | null) => void;
-    setToken: (token: string | null) => void;
+    setToken: (token: string | null, refreshToken?: string) => void;
 }
 
 
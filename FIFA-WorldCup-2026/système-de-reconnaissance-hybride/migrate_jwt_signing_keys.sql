@@ -0,0 +1,19 @@
+-- Migration : trousseau de clés de signature JWT partagé entre les instances (ES256 / EdDSA)
+-- slot : CURRENT (signe), NEXT (publiée avant usage), NULL (retirée, publiée jusqu'à expiration de ses tokens)
+-- La clé privée est chiffrée par l'application (AES-256-GCM) ; la table reste vide en mode HS256
+-- À exécuter avant de démarrer la nouvelle version en production (ddl-auto: validate)
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid          VARCHAR(64)  PRIMARY KEY,
+    algorithm    VARCHAR(16)  NOT NULL,
+    slot         VARCHAR(16)  UNIQUE CHECK (slot IN ('CURRENT', 'NEXT')),
+    public_key   VARCHAR(512) NOT NULL,
+    private_key  VARCHAR(512) NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    activated_at TIMESTAMP(6),
+    retired_at   TIMESTAMP(6)
+);
+
+COMMIT;
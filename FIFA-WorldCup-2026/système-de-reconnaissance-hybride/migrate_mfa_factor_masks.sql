@@ -0,0 +1,36 @@
+-- Migration : facteurs MFA des sessions en colonnes bitmask
+-- Remplace les tables mfa_session_required_factors / mfa_session_verified_factors
+-- Bits (voir MfaFactor) : FACE = 1, OTP = 2
+-- À exécuter avant de démarrer la nouvelle version en production (ddl-auto: validate)
+
+BEGIN;
+
+-- 1. Nouvelles colonnes
+ALTER TABLE mfa_sessions ADD COLUMN IF NOT EXISTS required_factors_mask INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE mfa_sessions ADD COLUMN IF NOT EXISTS verified_factors_mask INTEGER NOT NULL DEFAULT 0;
+
+-- 2. Reprise des sessions existantes
+UPDATE mfa_sessions s
+SET required_factors_mask = COALESCE((
+        SELECT BIT_OR(CASE f.factor WHEN 'FACE' THEN 1 WHEN 'OTP' THEN 2 ELSE 0 END)
+        FROM mfa_session_required_factors f
+        WHERE f.session_id = s.session_id), 0),
+    verified_factors_mask = COALESCE((
+        SELECT BIT_OR(CASE f.factor WHEN 'FACE' THEN 1 WHEN 'OTP' THEN 2 ELSE 0 END)
+        FROM mfa_session_verified_factors f
+        WHERE f.session_id = s.session_id), 0);
+
+-- Vérification
+SELECT session_id, email, required_factors_mask, verified_factors_mask
+FROM mfa_sessions
+ORDER BY created_at DESC
+LIMIT 20;
+
+-- 3. Suppression des anciennes tables de collection
+DROP TABLE IF EXISTS mfa_session_required_factors;
+DROP TABLE IF EXISTS mfa_session_verified_factors;
+
+COMMIT;
+
+-- 4. Index pour la purge par lots des sessions expirées
+CREATE INDEX IF NOT EXISTS idx_mfa_sessions_expires_at ON mfa_sessions (expires_at);
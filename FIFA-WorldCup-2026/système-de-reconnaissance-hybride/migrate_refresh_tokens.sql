@@ -0,0 +1,28 @@
+-- Migration : refresh tokens à rotation (stockés uniquement sous forme de hash SHA-256)
+-- Une famille regroupe toute la chaîne de rotation ; la réutilisation d'un token consommé la révoque entièrement
+-- À exécuter avant de démarrer la nouvelle version en production (ddl-auto: validate)
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGSERIAL    PRIMARY KEY,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    token_hash  VARCHAR(64)  NOT NULL UNIQUE,
+    family_id   VARCHAR(36)  NOT NULL,
+    expires_at  TIMESTAMP(6) NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    used_at     TIMESTAMP(6),
+    revoked_at  TIMESTAMP(6),
+    mfa_factors_mask INTEGER NOT NULL DEFAULT 0
+);
+
+-- Facteurs MFA vérifiés, repris à chaque rotation (base déjà migrée sans cette colonne)
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS mfa_factors_mask INTEGER NOT NULL DEFAULT 0;
+
+-- Révocation d'une famille (logout, réutilisation détectée)
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id);
+
+-- Purge des tokens expirés
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+COMMIT;
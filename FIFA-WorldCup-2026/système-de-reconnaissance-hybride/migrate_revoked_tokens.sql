@@ -0,0 +1,20 @@
+-- Migration : liste de révocation des JWT (claim "jti"), partagée entre les instances
+-- Chaque instance la recharge au démarrage puis la synchronise sur revoked_at (voir TokenRevocationList)
+-- À exécuter avant de démarrer la nouvelle version en production (ddl-auto: validate)
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    id          BIGSERIAL    PRIMARY KEY,
+    jti         VARCHAR(36)  NOT NULL UNIQUE,
+    expires_at  TIMESTAMP(6) NOT NULL,
+    revoked_at  TIMESTAMP(6) NOT NULL
+);
+
+-- Purge des révocations dont le JWT a expiré
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- Synchronisation incrémentale
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+
+COMMIT;
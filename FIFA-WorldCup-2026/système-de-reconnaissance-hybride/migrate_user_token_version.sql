@@ -0,0 +1,19 @@
+-- Migration : version de token par utilisateur (invalidation des JWT en mode stateless)
+-- Incrémentée à chaque désactivation / changement de niveau d'accès (voir TokenVersionRegistry)
+-- À exécuter avant de démarrer la nouvelle version en production (ddl-auto: validate)
+
+BEGIN;
+
+-- 1. Nouvelle colonne (0 = aucun token invalidé)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+-- Vérification
+SELECT id, email, token_version
+FROM users
+ORDER BY id
+LIMIT 20;
+
+COMMIT;
+
+-- 2. Index pour la synchronisation périodique du registre (utilisateurs modifiés récemment)
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at);